@@ -37,19 +37,37 @@ package fr.paris.lutece.plugins.project.business;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 
 import org.apache.commons.lang3.StringUtils;
 
+import fr.paris.lutece.util.sql.DAOUtil;
+
 
 public abstract class AbstractFilterDao {
 	
 	//Maps containing names and types of each databases column associated to a business class attribute 
 	protected HashMap<String,String> _mapSql;
 	
+	//Compiled statements by filter shape, bounded LRU shared by the requests using this DAO
+	protected final static int PLAN_CACHE_SIZE = 256;
+	private final Map<String,FilterQueryPlan> _mapPlanCache = Collections.synchronizedMap( new LinkedHashMap<String,FilterQueryPlan>( 16, 0.75f, true ) {
+		private static final long serialVersionUID = 1L;
+		
+		@Override
+		protected boolean removeEldestEntry( Map.Entry<String,FilterQueryPlan> eldest ) {
+			return size( ) > PLAN_CACHE_SIZE;
+		}
+	} );
+	
+	//Columns of the FULLTEXT index queried by the "fulltext" criteria, null if the DAO has no full-text search
+	private String _strFullTextColumns;
+	
 	//Prefix 
 	private final static String PREFIX_GET = "get";
 	private final static String PREFIX_IS = "is";
@@ -59,81 +77,408 @@ public abstract class AbstractFilterDao {
 	private final static String SQL_ORDER_BY =" ORDER BY ";
 	private final static String SQL_EQUAL =" = ? ";
 	private final static String SQL_LIKE =" LIKE ? ";
+	private final static String SQL_GREATER_OR_EQUAL =" >= ? ";
+	private final static String SQL_LESS_OR_EQUAL =" <= ? ";
 	private final static String SQL_AND = " AND ";
 	private final static String SQL_ASC =" ASC ";
 	private final static String SQL_DESC =" DESC ";
+	private final static String SQL_COMMA =" , ";
+	private final static String SQL_LIMIT =" LIMIT ? ";
+	private final static String SQL_LIMIT_OFFSET =" LIMIT ? OFFSET ? ";
+	private final static String SQL_MATCH =" MATCH ( %s ) AGAINST ( ? IN NATURAL LANGUAGE MODE ) ";
+	
+	//Constants SQL for keyset pagination (MySQL sorts NULL values first in ASC and last in DESC)
+	private final static String SQL_SEEK_ASC =" AND ( {col} > ? OR ( {col} = ? AND {id} > ? ) ) ";
+	private final static String SQL_SEEK_ASC_NULL =" AND ( {col} IS NOT NULL OR {id} > ? ) ";
+	private final static String SQL_SEEK_DESC =" AND ( {col} < ? OR ( {col} = ? AND {id} < ? ) OR {col} IS NULL ) ";
+	private final static String SQL_SEEK_DESC_NULL =" AND ( {col} IS NULL AND {id} < ? ) ";
+	private final static String SQL_SEEK_ID =" AND {id} > ? ";
+	private final static String MARK_COLUMN ="{col}";
+	private final static String MARK_ID ="{id}";
+	
+	//Attribute of the getId getter
+	private final static String ATTRIBUTE_ID = "id";
+	
+	//Variants of the seek clause, part of the filter shape
+	private final static String SEEK_FIRST_PAGE = "first";
+	private final static String SEEK_ID = "id";
+	private final static String SEEK_VALUE = "value";
+	private final static String SEEK_NULL = "null";
+	private final static String VARIANT_COUNT = "count";
+	private final static String VARIANT_RANGE = "range";
+	private final static char KEY_SEPARATOR = '|';
 	
 	//types only allowed for research
 	protected final static String TYPE_DATE = "Date";
 	protected final static String TYPE_STRING = "String";
 	protected final static String TYPE_BOOLEAN = "boolean";
 	protected final static String TYPE_INT = "int";
+	
+	//Name of the criteria searched in the full-text index
+	public final static String CRITERIA_FULLTEXT = "fulltext";
+
+	//Suffixes of the range criteria, allowed on the types of _listTypeAllowedForRange : sept_date_from, sept_date_to
+	protected final static String SUFFIX_FROM = "_from";
+	protected final static String SUFFIX_TO = "_to";
 
 	//List of constraints
 	private final static List<String> _listPrefixToRemove = Arrays.asList(PREFIX_GET,PREFIX_IS);
 	protected final static List<String> _listTypeAllowedForSearch = Arrays.asList(TYPE_DATE,TYPE_STRING,TYPE_BOOLEAN,TYPE_INT);
+	protected final static List<String> _listTypeAllowedForRange = Arrays.asList(TYPE_DATE,TYPE_INT);
+	
+	
+	 /**
+     *  Get the compiled filterStatement for the shape of the search : the filter criteria with a value, the sort column and the sort mode.
+     *  The statement is built once per shape and reused from the cache.
+     * @param strSelect the SELECT part of the statement
+     * @param mapFilterCriteria contains searchbar names/values inputs 
+     * @param strColumnToOrder contains the column name to use for orderBy statement in case of sorting request (may be null)
+     * @param strSortMode contains the sortMode in case of sorting request : ASC or DESC (may be null)
+	 * @return the plan with the sql statement and the filter columns to bind
+     */
+	
+	protected FilterQueryPlan getSelectPlan(String strSelect, Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode) {
+		
+		List<String> listColumns = getSearchColumns( mapFilterCriteria );
+		String strOrderColumn = ( StringUtils.isNotBlank( strColumnToOrder ) && _mapSql.containsKey( strColumnToOrder ) ) ? strColumnToOrder : null;
+		String strOrder = isDescending( strSortMode ) ? SQL_DESC : SQL_ASC;
+		String strKey = buildPlanKey( strSelect, listColumns, strOrderColumn, strOrder, null );
+		
+		return _mapPlanCache.computeIfAbsent( strKey, k -> {
+			
+			StringBuilder builder = new StringBuilder( strSelect );
+			List<String> listBindColumns = new ArrayList<>( listColumns );
+			builder.append( addWhereClauses( listColumns ) );
+			
+			if( strOrderColumn == null && listColumns.contains( CRITERIA_FULLTEXT ) ) {
+				// without an explicit sort, the full-text matches are ranked by relevance
+				builder.append( SQL_ORDER_BY ).append( String.format( SQL_MATCH, _strFullTextColumns ) ).append( SQL_DESC );
+				listBindColumns.add( CRITERIA_FULLTEXT );
+			}else {
+				builder.append( addOrderByClause( strOrderColumn, strOrder ) );
+			}
+			
+			return new FilterQueryPlan( builder.toString( ), listBindColumns, getColumnTypes( listBindColumns ) );
+		} );
+	}
+
+	 /**
+     *  Get the compiled count statement for the shape of the search, sharing the WHERE clauses of {@link #getSelectPlan}
+     * @param strSelectCount the SELECT COUNT part of the statement
+     * @param mapFilterCriteria contains searchbar names/values inputs 
+	 * @return the plan with the sql statement and the filter columns to bind
+     */
+	
+	protected FilterQueryPlan getCountPlan(String strSelectCount, Map <String,String> mapFilterCriteria) {
+		
+		List<String> listColumns = getSearchColumns( mapFilterCriteria );
+		String strKey = buildPlanKey( strSelectCount, listColumns, null, null, VARIANT_COUNT );
+		
+		return _mapPlanCache.computeIfAbsent( strKey, k -> new FilterQueryPlan( strSelectCount + addWhereClauses( listColumns ), listColumns, getColumnTypes( listColumns ) ) );
+	}
 	
+	 /**
+     *  Get the compiled statement of one numbered page of the search : the statement of {@link #getSelectPlan} with LIMIT and OFFSET.
+     *  The limit then the offset must be bound after the filter values.
+     * @param strSelect the SELECT part of the statement
+     * @param mapFilterCriteria contains searchbar names/values inputs 
+     * @param strColumnToOrder contains the column name to use for orderBy statement in case of sorting request (may be null)
+     * @param strSortMode contains the sortMode in case of sorting request : ASC or DESC (may be null)
+	 * @return the plan with the sql statement and the filter columns to bind
+     */
 	
+	protected FilterQueryPlan getRangePlan(String strSelect, Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode) {
+		
+		FilterQueryPlan plan = getSelectPlan( strSelect, mapFilterCriteria, strColumnToOrder, strSortMode );
+		
+		return _mapPlanCache.computeIfAbsent( VARIANT_RANGE + KEY_SEPARATOR + plan.getSql( ), k -> new FilterQueryPlan( plan.getSql( ) + SQL_LIMIT_OFFSET, plan.getBindColumns( ), plan.getBindTypes( ) ) );
+	}
+
 	 /**
-     *  Preparation of filterStatement
+     *  Get the compiled keyset (seek) pagination statement : the filter criteria, a WHERE clause that starts
+     *  after the cursor instead of an OFFSET, an ORDER BY made unique with the id column and a LIMIT.
+     *  The filter values must be bound with the plan, then the seek values with {@link #bindSeekParameters}, then the limit.
+     * @param strSelect the SELECT part of the statement
+     * @param strIdColumn the name of the id column, used as tie-breaker
      * @param mapFilterCriteria contains searchbar names/values inputs 
-     * @param strColumnToOrder contains the column name to use for orderBy statement in case of sorting request (must be null)
-     * @param strSortMode contains the sortMode in case of sorting request : ASC or DESC (must be null)
-	 * @return a string with the WHERE part and the ORDER BY part of the sql statement
+     * @param strColumnToOrder contains the column name to use for orderBy statement (may be null)
+     * @param strSortMode contains the sortMode : ASC or DESC (may be null)
+     * @param cursor the position of the last row of the previous page, null for the first page
+	 * @return the plan with the sql statement and the filter columns to bind
+     */
+	
+	protected FilterQueryPlan getSeekPlan( String strSelect, String strIdColumn, Map<String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode, KeysetCursor cursor ) {
+		
+		List<String> listColumns = getSearchColumns( mapFilterCriteria );
+		boolean bSorted = isSeekSortColumn( strColumnToOrder, strIdColumn );
+		String strOrder = ( bSorted && isDescending( strSortMode ) ) ? SQL_DESC : SQL_ASC;
+		
+		String strSeekVariant;
+		if( cursor == null ) {
+			strSeekVariant = SEEK_FIRST_PAGE;
+		}else if( !bSorted ) {
+			strSeekVariant = SEEK_ID;
+		}else {
+			strSeekVariant = ( cursor.getLastSortValue( ) == null ) ? SEEK_NULL : SEEK_VALUE;
+		}
+		String strKey = buildPlanKey( strSelect + KEY_SEPARATOR + strIdColumn, listColumns, bSorted ? strColumnToOrder : null, strOrder, strSeekVariant );
+		
+		return _mapPlanCache.computeIfAbsent( strKey, k -> {
+			
+			StringBuilder builder = new StringBuilder( strSelect );
+			String strWhereClauses = addWhereClauses( listColumns );
+			
+			if( !SEEK_FIRST_PAGE.equals( strSeekVariant ) && strWhereClauses.isEmpty( ) ) {
+				strWhereClauses = SQL_WHERE;
+			}
+			builder.append( strWhereClauses );
+			
+			String strSeek = null;
+			if( SEEK_ID.equals( strSeekVariant ) ) {
+				strSeek = SQL_SEEK_ID;
+			}else if( SEEK_VALUE.equals( strSeekVariant ) ) {
+				strSeek = ( strOrder == SQL_DESC ) ? SQL_SEEK_DESC : SQL_SEEK_ASC;
+			}else if( SEEK_NULL.equals( strSeekVariant ) ) {
+				strSeek = ( strOrder == SQL_DESC ) ? SQL_SEEK_DESC_NULL : SQL_SEEK_ASC_NULL;
+			}
+			if( strSeek != null ) {
+				builder.append( strSeek.replace( MARK_COLUMN, bSorted ? strColumnToOrder : strIdColumn ).replace( MARK_ID, strIdColumn ) );
+			}
+			
+			builder.append( SQL_ORDER_BY );
+			if( bSorted ) {
+				builder.append( strColumnToOrder ).append( strOrder ).append( SQL_COMMA );
+			}
+			builder.append( strIdColumn ).append( strOrder );
+			builder.append( SQL_LIMIT );
+			
+			return new FilterQueryPlan( builder.toString( ), listColumns, getColumnTypes( listColumns ) );
+		} );
+	}
+	
+	 /**
+     *  Bind the parameters of the seek clause of a plan built by {@link #getSeekPlan}
+     * @param daoUtil the daoUtil
+     * @param nIndex the index of the first parameter to bind
+     * @param strIdColumn the name of the id column
+     * @param strColumnToOrder the column name used for orderBy statement (may be null)
+     * @param cursor the position of the last row of the previous page, null for the first page
+	 * @return the index of the next parameter to bind
+     */
+	
+	protected int bindSeekParameters( DAOUtil daoUtil, int nIndex, String strIdColumn, String strColumnToOrder, KeysetCursor cursor ) {
+		
+		if( cursor == null ) {
+			return nIndex;
+		}
+		
+		if( isSeekSortColumn( strColumnToOrder, strIdColumn ) && cursor.getLastSortValue( ) != null ) {
+			String strType = _mapSql.get( strColumnToOrder );
+			FilterValueBinder.bind( daoUtil, nIndex++, strType, cursor.getLastSortValue( ) );
+			FilterValueBinder.bind( daoUtil, nIndex++, strType, cursor.getLastSortValue( ) );
+		}
+		daoUtil.setInt( nIndex++, cursor.getLastId( ) );
+		
+		return nIndex;
+	}
+	
+	 /**
+     *  Get every column that the search can filter or sort on
+	 * @return the sorted names of the columns whose type is allowed for a search
+     */
+	
+	protected List<String> getSearchableColumns( ) {
+		
+		List<String> listColumns = new ArrayList<>( );
+		
+		for( Map.Entry<String,String> column : _mapSql.entrySet( ) ) {
+			if( _listTypeAllowedForSearch.contains( column.getValue( ) ) ) {
+				listColumns.add( column.getKey( ) );
+			}
+		}
+		Collections.sort( listColumns );
+		
+		return listColumns;
+	}
+	
+	 /**
+     *  Check that the values of the search criteria can be parsed for the type of their column
+     * @param mapFilterCriteria contains searchbar names/values inputs 
+	 * @return the names of the criteria whose value is invalid, empty if all the values are valid
+     */
+	
+	public List<String> checkFilterCriteria( Map<String,String> mapFilterCriteria ) {
+		
+		List<String> listInvalidCriteria = new ArrayList<>( );
+		
+		for( String strColumn : getSearchColumns( mapFilterCriteria ) ) {
+			if( !FilterValueBinder.isValid( getColumnType( strColumn ), mapFilterCriteria.get( strColumn ) ) ) {
+				listInvalidCriteria.add( strColumn );
+			}
+		}
+		
+		return listInvalidCriteria;
+	}
+	
+	 /**
+     *  Check that the sort value of a cursor can be parsed for the type of the sort column
+     * @param strColumnToOrder the column name used for orderBy statement (may be null)
+     * @param strIdColumn the name of the id column
+     * @param cursor the cursor (may be null)
+	 * @return false if the cursor carries a sort value that is invalid for the column
+     */
+	
+	protected boolean isValidCursor( String strColumnToOrder, String strIdColumn, KeysetCursor cursor ) {
+		
+		return cursor == null || cursor.getLastSortValue( ) == null || !isSeekSortColumn( strColumnToOrder, strIdColumn )
+				|| FilterValueBinder.isValid( _mapSql.get( strColumnToOrder ), cursor.getLastSortValue( ) );
+	}
+	
+	 /**
+     *  Check if the page must be sorted on another column than the id
+     * @param strColumnToOrder the column name to use for orderBy statement (may be null)
+     * @param strIdColumn the name of the id column
+	 * @return true if the column is known and is not the id column
+     */
+	
+	protected boolean isSeekSortColumn( String strColumnToOrder, String strIdColumn ) {
+		
+		return StringUtils.isNotBlank( strColumnToOrder ) && _mapSql.containsKey( strColumnToOrder ) && !strColumnToOrder.equals( strIdColumn );
+	}
+	
+	 /**
+     *  Check if the sort mode is descending
+     * @param strSortMode the sort mode : ASC or DESC (may be null)
+	 * @return true for DESC
      */
 	
-	protected String prepareSelectStatement(String SQL_QUERY_SELECTALL_ID,Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode) {
+	protected boolean isDescending( String strSortMode ) {
 		
+		return SQL_DESC.trim( ).equalsIgnoreCase( StringUtils.trim( strSortMode ) );
+	}
+	
+	 /**
+     *  Get the columns of the search : the criteria with a value, matching a BDD column whose type is allowed for a search,
+     *  or a bound of a range (suffix _from or _to) on a BDD column whose type is allowed for a range.
+     *  The columns are sorted so that the same search always gives the same shape.
+     *  @param mapFilterCriteria contains searchbar names/values inputs 
+     *  @return the sorted list of columns
+     */
+	
+	protected List<String> getSearchColumns(Map<String, String> mapFilterCriteria) {
+		
+		List<String> listColumns = new ArrayList<>( );
+		
+		for(Map.Entry<String, String> filter : mapFilterCriteria.entrySet()) {
+			
+			//Check if a value was passed for the search, if the criteria name match with a BDD column name and if the type of this column is allowed for a search
+			if(StringUtils.isNotBlank(filter.getValue()) && _mapSql.containsKey(filter.getKey()) && _listTypeAllowedForSearch.contains(_mapSql.get(filter.getKey()))) {
+				listColumns.add( filter.getKey( ) );
+			}
+			//Or if the criteria is a bound of a range on a BDD column whose type is allowed for a range
+			else if(StringUtils.isNotBlank(filter.getValue()) && getRangeColumn(filter.getKey()) != null) {
+				listColumns.add( filter.getKey( ) );
+			}
+		}
+		if( _strFullTextColumns != null && StringUtils.isNotBlank( mapFilterCriteria.get( CRITERIA_FULLTEXT ) ) ) {
+			listColumns.add( CRITERIA_FULLTEXT );
+		}
+		Collections.sort( listColumns );
 		
-		StringBuilder builder = new StringBuilder();
+		return listColumns;
+	}
 
-        builder.append(SQL_QUERY_SELECTALL_ID);
-        builder.append(addWhereClauses(mapFilterCriteria));
-        builder.append(addOrderByClause(strColumnToOrder,strSortMode));
+	 /**
+     *  Get the types of the columns of the search
+     *  @param listColumns the columns of the search
+     *  @return the types, in the same order
+     */
+	
+	private List<String> getColumnTypes(List<String> listColumns) {
 		
+		List<String> listTypes = new ArrayList<>( );
 		
-		return  builder.toString();	
+		for(String strColumn : listColumns) {
+			listTypes.add( getColumnType( strColumn ) );
+		}
 		
+		return listTypes;
+	}
+	
+	 /**
+     *  Get the type of a column of the search, the full-text criteria being searched as a string
+     *  @param strColumn the column
+     *  @return the type
+     */
+	
+	private String getColumnType(String strColumn) {
+		
+		String strRangeColumn = getRangeColumn( strColumn );
+		
+		return _mapSql.getOrDefault( ( strRangeColumn != null ) ? strRangeColumn : strColumn, TYPE_STRING );
+	}
+	
+	 /**
+     *  Get the column of a range criteria
+     *  @param strCriteria the name of the criteria, for example sept_date_from
+     *  @return the column, for example sept_date, or null if the criteria is not a range on a column allowed for a range
+     */
+	
+	private String getRangeColumn(String strCriteria) {
+		
+		if( _mapSql.containsKey( strCriteria ) ) {
+			return null;
+		}
+		
+		String strColumn = null;
+		if( strCriteria.endsWith( SUFFIX_FROM ) ) {
+			strColumn = strCriteria.substring( 0, strCriteria.length( ) - SUFFIX_FROM.length( ) );
+		}else if( strCriteria.endsWith( SUFFIX_TO ) ) {
+			strColumn = strCriteria.substring( 0, strCriteria.length( ) - SUFFIX_TO.length( ) );
+		}
+		
+		return ( strColumn != null && _listTypeAllowedForRange.contains( _mapSql.get( strColumn ) ) ) ? strColumn : null;
 	}
 
 	 /**
      *  add Where clause to the filterStatement
-     *  @param mapFilterCriteria contains name and value of each where clause
+     *  @param listColumns the columns of the search
      *  @return the where part of the filterStatement
      */
 	
-	protected String addWhereClauses(Map<String, String> mapFilterCriteria) {
+	protected String addWhereClauses(List<String> listColumns) {
 		
 		StringBuilder WhereClauses = new StringBuilder();
 		
-		if(!mapFilterIsEmpty(mapFilterCriteria)) {
+		if(!listColumns.isEmpty( )) {
 			
 			WhereClauses.append(SQL_WHERE);
 			
-			for(Map.Entry<String, String> filter : mapFilterCriteria.entrySet()) {
-			    
-				//Check if a value was passed for the search 
-				if(StringUtils.isNotBlank(filter.getValue())) {
-					
-					//Check if the criteria name match with a BDD column name and if the type of this column is allowed for a search
-					if(_mapSql.containsKey(filter.getKey()) && _listTypeAllowedForSearch.contains(_mapSql.get(filter.getKey()))) {
-								
-						WhereClauses.append(SQL_AND);
-						WhereClauses.append(filter.getKey());
-						WhereClauses.append(addWhereClauseOperator(filter.getKey()));
-					}
+			for(String strColumn : listColumns) {
+				
+				WhereClauses.append(SQL_AND);
+				String strRangeColumn = getRangeColumn( strColumn );
+				
+				if( CRITERIA_FULLTEXT.equals( strColumn ) ) {
+					WhereClauses.append(String.format(SQL_MATCH, _strFullTextColumns));
+				}else if( strRangeColumn != null ) {
+					//Bounds are inclusive and compare the bare column, so the index on the column is used
+					WhereClauses.append(strRangeColumn);
+					WhereClauses.append(strColumn.endsWith( SUFFIX_FROM ) ? SQL_GREATER_OR_EQUAL : SQL_LESS_OR_EQUAL);
+				}else {
+					WhereClauses.append(strColumn);
+					WhereClauses.append(addWhereClauseOperator(strColumn));
 				}
 			}
-			
 		}
 		
 		return WhereClauses.toString();
-	}; 
+	}
 	    
 	 /**
      *  add OrderBy columns to the filterStatement
-     * @param strColumnToOrder contains the column name to use for orderBy statement in case of sorting request (must be null)
-     * @param strSortMode contains the sortMode in case of sorting request : ASC or DESC (must be null)
+     * @param strColumnToOrder contains the column name to use for orderBy statement (may be null)
+     * @param strSortMode contains the sortMode : ASC or DESC
 	 * @return the orderBy part of the filterStatement
      */
 	
@@ -156,20 +501,20 @@ public abstract class AbstractFilterDao {
 		return "";
 	} 
 	
-    /**
-     * Check if _mapFilter is empty
-     * @return boolean
+	 /**
+     *  Build the key of a filter shape in the plan cache
+	 * @return the key
      */
-    
-    private boolean mapFilterIsEmpty(Map<String,String> mapFilterCriteria) {
+	
+	private String buildPlanKey( String strSelect, List<String> listColumns, String strOrderColumn, String strOrder, String strSeekVariant ) {
 		
-    	for (Map.Entry<String, String> entry : mapFilterCriteria.entrySet()) {
-    		if(StringUtils.isNotBlank(entry.getValue())) {
-    			return false;
-    		}
-        }
-    	
-    	return true;
+		StringBuilder builder = new StringBuilder( strSelect );
+		builder.append( KEY_SEPARATOR ).append( listColumns );
+		builder.append( KEY_SEPARATOR ).append( strOrderColumn );
+		builder.append( KEY_SEPARATOR ).append( strOrder );
+		builder.append( KEY_SEPARATOR ).append( strSeekVariant );
+		
+		return builder.toString( );
 	}
 	
 	 /**
@@ -226,6 +571,23 @@ public abstract class AbstractFilterDao {
     }
     
     
+    /**
+    * Initialization of mapSql, with the primary key column of the table instead of the column inferred from getId.
+    * mapSql Containing names and types of each databases column associated to a business class attribute.
+    * @param businessClass the business class
+    * @param strIdColumn the name of the primary key column, exemple : id_project for getId
+    */
+	protected void initMapSql(Class<?> businessClass, String strIdColumn) {
+		
+		initMapSql(businessClass);
+		
+		//getId would be mapped on a column "id" that does not exist
+		String strIdType = _mapSql.remove(ATTRIBUTE_ID);
+		if(strIdType != null) {
+			_mapSql.put(strIdColumn, strIdType);
+		}
+	}
+	
     /**
     * Initialization of mapSql. 
     * mapSql Containing names and types of each databases column associated to a business class attribute.
@@ -245,5 +607,14 @@ public abstract class AbstractFilterDao {
 	        }
 	}
 	
+    /**
+    * Enable the "fulltext" criteria, searched with MATCH ... AGAINST in natural language mode.
+    * @param strFullTextColumns the columns of the FULLTEXT index, separated by commas, in the order of the index
+    */
+	protected void initFullTextSearch(String strFullTextColumns) {
+		
+		_strFullTextColumns = strFullTextColumns;
+	}
+	
 }
  
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.business;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import fr.paris.lutece.util.sql.DAOUtil;
+
+/**
+ * Immutable compiled search statement : the sql text and the filter columns to bind, in the order of their placeholders.
+ * A plan is built once per filter shape by {@link AbstractFilterDao} and shared between requests.
+ */
+public final class FilterQueryPlan
+{
+    private final String _strSql;
+    private final List<String> _listBindColumns;
+    private final List<String> _listBindTypes;
+
+    /**
+     * Constructor
+     * @param strSql the sql statement
+     * @param listBindColumns the filter columns, in the order of their placeholders
+     * @param listBindTypes the types of the filter columns, in the same order
+     */
+    FilterQueryPlan( String strSql, List<String> listBindColumns, List<String> listBindTypes )
+    {
+        _strSql = strSql;
+        _listBindColumns = Collections.unmodifiableList( new ArrayList<>( listBindColumns ) );
+        _listBindTypes = Collections.unmodifiableList( new ArrayList<>( listBindTypes ) );
+    }
+
+    /**
+     * Returns the sql statement
+     * @return the sql statement
+     */
+    public String getSql( )
+    {
+        return _strSql;
+    }
+
+    /**
+     * Returns the filter columns, in the order of their placeholders
+     * @return the columns
+     */
+    public List<String> getBindColumns( )
+    {
+        return _listBindColumns;
+    }
+
+    /**
+     * Returns the types of the filter columns, in the order of their placeholders
+     * @return the types
+     */
+    public List<String> getBindTypes( )
+    {
+        return _listBindTypes;
+    }
+
+    /**
+     * Bind the filter values of the search with the setter of their column type, starting at the first parameter
+     * @param daoUtil the daoUtil
+     * @param mapFilterCriteria contains search bar names/values inputs
+     * @return the index of the next parameter to bind
+     * @throws IllegalArgumentException if a value cannot be parsed for the type of its column
+     */
+    public int bindFilterValues( DAOUtil daoUtil, Map<String, String> mapFilterCriteria )
+    {
+        int nIndex = 1;
+
+        for ( int i = 0; i < _listBindColumns.size( ); i++ )
+        {
+            FilterValueBinder.bind( daoUtil, nIndex++, _listBindTypes.get( i ), mapFilterCriteria.get( _listBindColumns.get( i ) ) );
+        }
+
+        return nIndex;
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.business;
+
+import java.sql.Date;
+
+import fr.paris.lutece.util.sql.DAOUtil;
+
+/**
+ * Parse the values of the search criteria according to the type of their column and bind them with the matching setter,
+ * so that the database compares values of the column type and can use its indexes
+ */
+public final class FilterValueBinder
+{
+    private static final String BOOLEAN_TRUE = "1";
+    private static final String BOOLEAN_FALSE = "0";
+
+    /**
+     * Private constructor
+     */
+    private FilterValueBinder( )
+    {
+    }
+
+    /**
+     * Check if a value can be parsed for the type of its column
+     * @param strType the type of the column, as found in AbstractFilterDao._mapSql
+     * @param strValue the value
+     * @return true if the value is valid
+     */
+    public static boolean isValid( String strType, String strValue )
+    {
+        try
+        {
+            parse( strType, strValue );
+            return true;
+        }
+        catch( IllegalArgumentException e )
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Bind a value with the setter of the type of its column
+     * @param daoUtil the daoUtil
+     * @param nIndex the index of the parameter
+     * @param strType the type of the column
+     * @param strValue the value
+     * @throws IllegalArgumentException if the value cannot be parsed for the type
+     */
+    public static void bind( DAOUtil daoUtil, int nIndex, String strType, String strValue )
+    {
+        Object value = parse( strType, strValue );
+
+        if ( value instanceof Integer )
+        {
+            daoUtil.setInt( nIndex, (Integer) value );
+        }
+        else if ( value instanceof Date )
+        {
+            daoUtil.setDate( nIndex, (Date) value );
+        }
+        else if ( value instanceof Boolean )
+        {
+            daoUtil.setBoolean( nIndex, (Boolean) value );
+        }
+        else
+        {
+            daoUtil.setString( nIndex, (String) value );
+        }
+    }
+
+    /**
+     * Parse a value for the type of its column
+     * @param strType the type of the column
+     * @param strValue the value
+     * @return an Integer, a Date (yyyy-mm-dd), a Boolean (1/0/true/false) or the value itself for the other types
+     * @throws IllegalArgumentException if the value cannot be parsed for the type
+     */
+    static Object parse( String strType, String strValue )
+    {
+        if ( strValue == null )
+        {
+            throw new IllegalArgumentException( "Missing value" );
+        }
+
+        String strTrimmed = strValue.trim( );
+
+        switch( strType )
+        {
+            case AbstractFilterDao.TYPE_INT:
+                return Integer.valueOf( strTrimmed );
+            case AbstractFilterDao.TYPE_DATE:
+                return Date.valueOf( strTrimmed );
+            case AbstractFilterDao.TYPE_BOOLEAN:
+                if ( BOOLEAN_TRUE.equals( strTrimmed ) || Boolean.TRUE.toString( ).equalsIgnoreCase( strTrimmed ) )
+                {
+                    return Boolean.TRUE;
+                }
+                if ( BOOLEAN_FALSE.equals( strTrimmed ) || Boolean.FALSE.toString( ).equalsIgnoreCase( strTrimmed ) )
+                {
+                    return Boolean.FALSE;
+                }
+                throw new IllegalArgumentException( "Invalid boolean : " + strValue );
+            default:
+                return strValue;
+        }
+    }
+}
@@ -39,6 +39,7 @@ import fr.paris.lutece.util.ReferenceList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * IProjectDAO Interface
@@ -53,11 +54,14 @@ public interface IProjectDAO
     void insert( Project project, Plugin plugin );
 
     /**
-     * Update the record in the table
+     * Update the record in the table if its version is still the version of the project, then increment the version of the project.
+     * The project must have been read from the table : a project built in memory has the version 0, which no longer matches once its record has been updated.
+     * Only the columns changed since the project was read are written, all of them if it was built in memory.
      * @param project the reference of the Project
      * @param plugin the Plugin
+     * @return true if the record has been updated or had nothing to update, false if it has been modified or removed since the project was read
      */
-    void store( Project project, Plugin plugin );
+    boolean store( Project project, Plugin plugin );
 
     /**
      * Delete a record from the table
@@ -66,6 +70,30 @@ public interface IProjectDAO
      */
     void delete( int nKey, Plugin plugin );
 
+    /**
+     * Insert new records in the table with a single JDBC batch. The generated keys are set on each project.
+     * @param listProjects the projects to insert
+     * @param plugin the Plugin
+     */
+    void insertBatch( List<Project> listProjects, Plugin plugin );
+
+    /**
+     * Update records in the table with a single JDBC batch. As for {@link #store}, a record is only updated if
+     * its version is still the version of its project, and only the versions of the updated projects are incremented.
+     * As for {@link #store}, only the changed columns are written : the projects are sent in one batch per set of changed columns.
+     * @param listProjects the projects to update
+     * @param plugin the Plugin
+     * @return the projects which have not been updated because they have been modified or removed since they were read
+     */
+    List<Project> storeBatch( List<Project> listProjects, Plugin plugin );
+
+    /**
+     * Delete records from the table with a single JDBC batch
+     * @param listKeys The identifiers of the Projects to delete
+     * @param plugin the Plugin
+     */
+    void deleteBatch( List<Integer> listKeys, Plugin plugin );
+
     ///////////////////////////////////////////////////////////////////////////
     // Finders
 
@@ -84,6 +112,18 @@ public interface IProjectDAO
      */
     List<Project> selectProjectsList( Plugin plugin );
     
+    /**
+     * Read the project objects fitting with the search criteria and hand them one by one to the consumer.
+     * The rows are read by chunks of nFetchSize, ordered by the sort column then by id, so the memory used does not depend on the number of rows.
+     * @param plugin the Plugin
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @param strColumnToOrder contains the column name to use for orderBy statement (may be null)
+     * @param strSortMode contains the sortMode : ASC or DESC (may be null)
+     * @param nFetchSize the number of rows read per query
+     * @param consumer the consumer of each project
+     */
+    void selectProjects( Plugin plugin, Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode, int nFetchSize, Consumer<Project> consumer );
+    
        /**
      * Load the id of all the types objects and returns them as a list
      * @param plugin the Plugin
@@ -92,7 +132,48 @@ public interface IProjectDAO
      * @param strSortMode contains the sortMode in case of sorting request : ASC or DESC (must be null)
      * @return The list which contains the id of all the project objects fitting with the seach criteria.
      */
-    List<Integer> selectIdProjectsList( Plugin plugin, Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode );
+    IdList selectIdProjectsList( Plugin plugin, Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode );
+    
+    /**
+     * Count the project objects fitting with the search criteria
+     * @param plugin the Plugin
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @return The number of matching project objects
+     */
+    int selectIdProjectsCount( Plugin plugin, Map <String,String> mapFilterCriteria );
+    
+    /**
+     * Load the ids of one numbered page of the project objects fitting with the search criteria (LIMIT / OFFSET),
+     * with the same filter as {@link #selectIdProjectsCount}
+     * @param plugin the Plugin
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @param strColumnToOrder contains the column name to use for orderBy statement (may be null)
+     * @param strSortMode contains the sortMode : ASC or DESC (may be null)
+     * @param nOffset the number of matching rows to skip
+     * @param nLimit the maximum number of ids to return
+     * @return The list of ids of the page
+     */
+    IdList selectIdProjectsRange( Plugin plugin, Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode, int nOffset, int nLimit );
+    
+    /**
+     * Load one page of the ids of the project objects fitting with the search criteria, using a keyset (seek) pagination :
+     * the page starts after the cursor instead of skipping the previous rows, so every page costs the same as the first one
+     * @param plugin the Plugin
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @param strColumnToOrder contains the column name to use for orderBy statement (may be null)
+     * @param strSortMode contains the sortMode : ASC or DESC (may be null)
+     * @param strCursor the token returned with the previous page, null for the first page
+     * @param nPageSize the maximum number of ids of the page
+     * @return The page of ids with the token of the next page
+     */
+    KeysetPage<Integer> selectIdProjectsPage( Plugin plugin, Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode, String strCursor, int nPageSize );
+    
+    /**
+     * Check that the values of the search criteria can be parsed for the type of their column
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @return the names of the criteria whose value is invalid, empty if all the values are valid
+     */
+    List<String> checkFilterCriteria( Map <String,String> mapFilterCriteria );
     
     /**
      * Load the data of all the project objects and returns them as a referenceList
@@ -102,10 +183,27 @@ public interface IProjectDAO
     ReferenceList selectProjectsReferenceList( Plugin plugin );
     
     /**
-     * Load the data of all the avant objects and returns them as a list
+     * Load the data of all the avant objects and returns them as a list, without the quatre_lg column which is left null
      * @param plugin the Plugin
      * @param listIds liste of ids
-     * @return The list which contains the data of all the avant objects
+     * @return The list which contains the data of all the avant objects, in the order of the ids
      */
 	List<Project> selectProjectsListByIds( Plugin _plugin, List<Integer> listIds );
+	
+    /**
+     * Load the columns of the projection for the project objects and returns them as a list
+     * @param plugin the Plugin
+     * @param listIds liste of ids
+     * @param projection the columns to read
+     * @return The list which contains the data of the project objects, in the order of the ids, once per id
+     */
+	List<Project> selectProjectsListByIds( Plugin _plugin, List<Integer> listIds, ProjectProjection projection );
+	
+    /**
+     * Load the quatre_lg column of a project
+     * @param nKey The identifier of the project
+     * @param plugin the Plugin
+     * @return The value of quatre_lg, or null if the project does not exist
+     */
+	String selectQuatreLg( int nKey, Plugin plugin );
 }
\ No newline at end of file
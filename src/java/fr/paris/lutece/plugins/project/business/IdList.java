@@ -0,0 +1,257 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.business;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+import java.util.stream.IntStream;
+
+/**
+ * Immutable list of ids backed by an int array : 4 bytes per id instead of a boxed Integer and its reference.
+ * The ids are only boxed when they are read through the List interface, and a sub list is a view on the same array,
+ * so a page of a long result can be sliced without copying or boxing the whole result.
+ */
+public final class IdList extends AbstractList<Integer> implements RandomAccess, Serializable
+{
+    private static final long serialVersionUID = 1L;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final IdList EMPTY = new IdList( new int [ 0], 0, 0 );
+
+    private final int [ ] _ids;
+    private final int _nFrom;
+    private final int _nTo;
+
+    /**
+     * Constructor, the array is shared and must not be modified afterwards
+     * @param ids the ids
+     * @param nFrom the first index, inclusive
+     * @param nTo the last index, exclusive
+     */
+    private IdList( int [ ] ids, int nFrom, int nTo )
+    {
+        _ids = ids;
+        _nFrom = nFrom;
+        _nTo = nTo;
+    }
+
+    /**
+     * Returns an empty list
+     * @return the list
+     */
+    public static IdList empty( )
+    {
+        return EMPTY;
+    }
+
+    /**
+     * Returns a list of a copy of the given ids
+     * @param ids the ids
+     * @return the list
+     */
+    public static IdList of( int... ids )
+    {
+        return wrap( ids.clone( ) );
+    }
+
+    /**
+     * Returns a list backed by the given array, which must not be modified afterwards
+     * @param ids the ids
+     * @return the list
+     */
+    static IdList wrap( int [ ] ids )
+    {
+        return new IdList( ids, 0, ids.length );
+    }
+
+    /**
+     * Returns the id at a position, without boxing
+     * @param nIndex the position
+     * @return the id
+     */
+    public int getInt( int nIndex )
+    {
+        if ( nIndex < 0 || nIndex >= size( ) )
+        {
+            throw new IndexOutOfBoundsException( "Index: " + nIndex + ", Size: " + size( ) );
+        }
+
+        return _ids [_nFrom + nIndex];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Integer get( int nIndex )
+    {
+        return getInt( nIndex );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int size( )
+    {
+        return _nTo - _nFrom;
+    }
+
+    /**
+     * Returns a view of a part of the list, sharing the same array
+     * @param nFromIndex the first position, inclusive
+     * @param nToIndex the last position, exclusive
+     * @return the sub list
+     */
+    @Override
+    public IdList subList( int nFromIndex, int nToIndex )
+    {
+        if ( nFromIndex < 0 || nToIndex > size( ) || nFromIndex > nToIndex )
+        {
+            throw new IndexOutOfBoundsException( "From: " + nFromIndex + ", To: " + nToIndex + ", Size: " + size( ) );
+        }
+
+        return new IdList( _ids, _nFrom + nFromIndex, _nFrom + nToIndex );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int indexOf( Object o )
+    {
+        if ( o instanceof Integer )
+        {
+            int nId = (Integer) o;
+            for ( int i = _nFrom; i < _nTo; i++ )
+            {
+                if ( _ids [i] == nId )
+                {
+                    return i - _nFrom;
+                }
+            }
+        }
+
+        return -1;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean contains( Object o )
+    {
+        return indexOf( o ) >= 0;
+    }
+
+    /**
+     * Returns the ids as a stream of int
+     * @return the stream
+     */
+    public IntStream intStream( )
+    {
+        return Arrays.stream( _ids, _nFrom, _nTo );
+    }
+
+    /**
+     * Returns a copy of the ids
+     * @return the array
+     */
+    public int [ ] toIntArray( )
+    {
+        return Arrays.copyOfRange( _ids, _nFrom, _nTo );
+    }
+
+    /**
+     * Returns the ids as an array, the backing array itself when the list covers it entirely.
+     * It must not be modified.
+     * @return the array
+     */
+    int [ ] sharedArray( )
+    {
+        return ( _nFrom == 0 && _nTo == _ids.length ) ? _ids : toIntArray( );
+    }
+
+    /**
+     * Builder of a list read row by row, growing like an ArrayList without boxing
+     */
+    public static final class Builder
+    {
+        private int [ ] _ids;
+        private int _nSize;
+
+        /**
+         * Constructor
+         */
+        public Builder( )
+        {
+            this( DEFAULT_CAPACITY );
+        }
+
+        /**
+         * Constructor
+         * @param nCapacity the expected number of ids
+         */
+        public Builder( int nCapacity )
+        {
+            _ids = new int [ Math.max( 1, nCapacity )];
+        }
+
+        /**
+         * Add an id at the end of the list
+         * @param nId the id
+         * @return this builder
+         */
+        public Builder add( int nId )
+        {
+            if ( _nSize == _ids.length )
+            {
+                _ids = Arrays.copyOf( _ids, _ids.length + ( _ids.length >> 1 ) + 1 );
+            }
+            _ids [_nSize++] = nId;
+
+            return this;
+        }
+
+        /**
+         * Returns the list of the added ids, with an array of the exact size
+         * @return the list
+         */
+        public IdList build( )
+        {
+            return ( _nSize == 0 ) ? EMPTY : wrap( ( _nSize == _ids.length ) ? _ids : Arrays.copyOf( _ids, _nSize ) );
+        }
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.business;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position of the last row read in a keyset (seek) pagination.
+ * The cursor holds the id of the last row and the value of the sort column for this row,
+ * so that the next page can be read with a WHERE clause instead of an OFFSET.
+ */
+public final class KeysetCursor
+{
+    private static final char SEPARATOR = ':';
+    private static final char NULL_VALUE = '0';
+    private static final char NOT_NULL_VALUE = '1';
+
+    private final int _nLastId;
+    private final String _strLastSortValue;
+
+    /**
+     * Constructor
+     * @param nLastId the id of the last row read
+     * @param strLastSortValue the value of the sort column for the last row read (may be null)
+     */
+    public KeysetCursor( int nLastId, String strLastSortValue )
+    {
+        _nLastId = nLastId;
+        _strLastSortValue = strLastSortValue;
+    }
+
+    /**
+     * Returns the id of the last row read
+     * @return the id
+     */
+    public int getLastId( )
+    {
+        return _nLastId;
+    }
+
+    /**
+     * Returns the value of the sort column for the last row read
+     * @return the value, or null if the column was null or the page is not sorted
+     */
+    public String getLastSortValue( )
+    {
+        return _strLastSortValue;
+    }
+
+    /**
+     * Encode the cursor as an opaque token usable in an URL
+     * @return the token
+     */
+    public String encode( )
+    {
+        StringBuilder builder = new StringBuilder( );
+        builder.append( _nLastId ).append( SEPARATOR );
+
+        if ( _strLastSortValue == null )
+        {
+            builder.append( NULL_VALUE );
+        }
+        else
+        {
+            builder.append( NOT_NULL_VALUE ).append( _strLastSortValue );
+        }
+
+        return Base64.getUrlEncoder( ).withoutPadding( ).encodeToString( builder.toString( ).getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    /**
+     * Decode a token built by {@link #encode()}
+     * @param strToken the token
+     * @return the cursor, or null if the token is blank or malformed
+     */
+    public static KeysetCursor decode( String strToken )
+    {
+        if ( strToken == null || strToken.isEmpty( ) )
+        {
+            return null;
+        }
+
+        try
+        {
+            String strDecoded = new String( Base64.getUrlDecoder( ).decode( strToken ), StandardCharsets.UTF_8 );
+            int nSeparator = strDecoded.indexOf( SEPARATOR );
+
+            if ( nSeparator < 1 || nSeparator + 1 >= strDecoded.length( ) )
+            {
+                return null;
+            }
+
+            int nLastId = Integer.parseInt( strDecoded.substring( 0, nSeparator ) );
+            String strValue = ( strDecoded.charAt( nSeparator + 1 ) == NULL_VALUE ) ? null : strDecoded.substring( nSeparator + 2 );
+
+            return new KeysetCursor( nLastId, strValue );
+        }
+        catch( IllegalArgumentException e )
+        {
+            // covers NumberFormatException : a tampered token simply restarts from the first page
+            return null;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.business;
+
+import java.util.List;
+
+/**
+ * One page of a keyset (seek) pagination : the items of the page and the token to read the next one
+ * @param <T> the type of the items
+ */
+public class KeysetPage<T>
+{
+    private final List<T> _listItems;
+    private final String _strNextCursor;
+
+    /**
+     * Constructor
+     * @param listItems the items of the page
+     * @param strNextCursor the token of the next page, null if this page is the last one
+     */
+    public KeysetPage( List<T> listItems, String strNextCursor )
+    {
+        _listItems = listItems;
+        _strNextCursor = strNextCursor;
+    }
+
+    /**
+     * Returns the items of the page
+     * @return the items
+     */
+    public List<T> getItems( )
+    {
+        return _listItems;
+    }
+
+    /**
+     * Returns the token to pass to read the next page
+     * @return the token, or null if there is no next page
+     */
+    public String getNextCursor( )
+    {
+        return _strNextCursor;
+    }
+
+    /**
+     * Check if a next page exists
+     * @return true if a next page exists
+     */
+    public boolean hasNext( )
+    {
+        return _strNextCursor != null;
+    }
+}
@@ -39,6 +39,9 @@ import org.hibernate.validator.constraints.URL;
 import org.hibernate.validator.constraints.Email;
 import java.io.Serializable;
 import java.sql.Date;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
 import javax.validation.constraints.NotNull;
 import fr.paris.lutece.portal.business.file.File;
 /**
@@ -73,6 +76,20 @@ public class Project implements Serializable
     
     private File _fileNeufFile;
 
+    private int _nVersion;
+
+    // true when the project was read without its quatre_lg column, which is then null until it is set
+    private boolean _bQuatreLgNotRead;
+
+    // columns set to a new value since the project was read or written, so that an update only writes them
+    private final EnumSet<ProjectColumn> _setChangedColumns = EnumSet.noneOf( ProjectColumn.class );
+
+    // key of the file when the project was read or written : the File object may be modified in place
+    private String _strStoredNeufFileKey;
+
+    // true once the project has been read or written : until then the values of its row are unknown and all its columns are written
+    private boolean _bInLineWithRow;
+
     /**
      * Returns the Id
      * @return The Id
@@ -106,6 +123,7 @@ public class Project implements Serializable
      */ 
     public void setUnEntier( int nUnEntier )
     {
+        markChanged( ProjectColumn.UN_ENTIER, _nUnEntier != nUnEntier );
         _nUnEntier = nUnEntier;
     }
     
@@ -125,6 +143,7 @@ public class Project implements Serializable
      */ 
     public void setDeuxSh( String strDeuxSh )
     {
+        markChanged( ProjectColumn.DEUX_SH, !Objects.equals( _strDeuxSh, strDeuxSh ) );
         _strDeuxSh = strDeuxSh;
     }
     
@@ -144,12 +163,13 @@ public class Project implements Serializable
      */ 
     public void setTroisMd( String strTroisMd )
     {
+        markChanged( ProjectColumn.TROIS_MD, !Objects.equals( _strTroisMd, strTroisMd ) );
         _strTroisMd = strTroisMd;
     }
     
     
     /**
-     * Returns the QuatreLg
+     * Returns the QuatreLg. It is null for a project read without it, see {@link ProjectHome#findQuatreLg}
      * @return The QuatreLg
      */
     public String getQuatreLg( )
@@ -163,7 +183,18 @@ public class Project implements Serializable
      */ 
     public void setQuatreLg( String strQuatreLg )
     {
+        // the current value of a column not read is unknown, it is not read only to be compared
+        markChanged( ProjectColumn.QUATRE_LG, _bQuatreLgNotRead || !Objects.equals( _strQuatreLg, strQuatreLg ) );
         _strQuatreLg = strQuatreLg;
+        _bQuatreLgNotRead = false;
+    }
+
+    /**
+     * Marks the QuatreLg as not read from the database : it is not written by an update unless it is set
+     */
+    void markQuatreLgNotRead( )
+    {
+        _bQuatreLgNotRead = true;
     }
     
     
@@ -182,6 +213,7 @@ public class Project implements Serializable
      */ 
     public void setCinqMail( String strCinqMail )
     {
+        markChanged( ProjectColumn.CINQ_MAIL, !Objects.equals( _strCinqMail, strCinqMail ) );
         _strCinqMail = strCinqMail;
     }
     
@@ -201,6 +233,7 @@ public class Project implements Serializable
      */ 
     public void setSixUrl( String strSixUrl )
     {
+        markChanged( ProjectColumn.SIX_URL, !Objects.equals( _strSixUrl, strSixUrl ) );
         _strSixUrl = strSixUrl;
     }
     
@@ -220,6 +253,7 @@ public class Project implements Serializable
      */ 
     public void setSeptDate( Date dateSeptDate )
     {
+        markChanged( ProjectColumn.SEPT_DATE, !Objects.equals( _dateSeptDate, dateSeptDate ) );
         _dateSeptDate = dateSeptDate;
     }
     
@@ -239,6 +273,7 @@ public class Project implements Serializable
      */ 
     public void setHuitB( boolean bHuitB )
     {
+        markChanged( ProjectColumn.HUIT_B, _bHuitB != bHuitB );
         _bHuitB = bHuitB;
     }
     
@@ -260,5 +295,98 @@ public class Project implements Serializable
     {
         _fileNeufFile = fileNeufFile;
     }
-    
+
+    /**
+     * Returns the Version, incremented by each update of the project
+     * @return The Version
+     */
+    public int getVersion( )
+    {
+        return _nVersion;
+    }
+
+    /**
+     * Sets the Version
+     * @param nVersion The Version
+     */ 
+    public void setVersion( int nVersion )
+    {
+        _nVersion = nVersion;
+    }
+
+    /**
+     * Returns a copy of the project, whose changes do not affect this one
+     * @return the copy, with no changed columns
+     */
+    Project copy( )
+    {
+        Project project = new Project( );
+        project._nId = _nId;
+        project._nUnEntier = _nUnEntier;
+        project._strDeuxSh = _strDeuxSh;
+        project._strTroisMd = _strTroisMd;
+        project._strQuatreLg = _strQuatreLg;
+        project._bQuatreLgNotRead = _bQuatreLgNotRead;
+        project._strCinqMail = _strCinqMail;
+        project._strSixUrl = _strSixUrl;
+        project._dateSeptDate = _dateSeptDate;
+        project._bHuitB = _bHuitB;
+        if ( _fileNeufFile != null )
+        {
+            // only the key of the file is stored with the project
+            project._fileNeufFile = new File( );
+            project._fileNeufFile.setFileKey( _fileNeufFile.getFileKey( ) );
+        }
+        project._nVersion = _nVersion;
+        project.resetChangedColumns( );
+        project._bInLineWithRow = _bInLineWithRow;
+
+        return project;
+    }
+
+    /**
+     * Mark a column as changed
+     * @param column the column
+     * @param bChanged true if the new value differs from the current one
+     */
+    private void markChanged( ProjectColumn column, boolean bChanged )
+    {
+        if ( bChanged )
+        {
+            _setChangedColumns.add( column );
+        }
+    }
+
+    /**
+     * Returns the columns changed since the project was read or written, all the columns if it has never been
+     * @return a copy of the set of changed columns
+     */
+    Set<ProjectColumn> changedColumns( )
+    {
+        if ( !_bInLineWithRow )
+        {
+            // a value equal to the default value of its field may still differ from the row
+            return EnumSet.allOf( ProjectColumn.class );
+        }
+
+        EnumSet<ProjectColumn> setChangedColumns = EnumSet.copyOf( _setChangedColumns );
+        String strNeufFileKey = ( _fileNeufFile != null ) ? _fileNeufFile.getFileKey( ) : null;
+
+        if ( !Objects.equals( strNeufFileKey, _strStoredNeufFileKey ) )
+        {
+            setChangedColumns.add( ProjectColumn.NEUF_FILE );
+        }
+
+        return setChangedColumns;
+    }
+
+    /**
+     * Mark the project as in line with its row, once it has been read or written
+     */
+    void resetChangedColumns( )
+    {
+        _setChangedColumns.clear( );
+        _strStoredNeufFileKey = ( _fileNeufFile != null ) ? _fileNeufFile.getFileKey( ) : null;
+        _bInLineWithRow = true;
+    }
 }
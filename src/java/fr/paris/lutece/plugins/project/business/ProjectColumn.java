@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.business;
+
+/**
+ * The updatable columns of project_table, in the order of the UPDATE statement
+ */
+public enum ProjectColumn
+{
+    UN_ENTIER( "un_entier" ),
+    DEUX_SH( "deux_sh" ),
+    TROIS_MD( "trois_md" ),
+    QUATRE_LG( "quatre_lg" ),
+    CINQ_MAIL( "cinq_mail" ),
+    SIX_URL( "six_url" ),
+    SEPT_DATE( "sept_date" ),
+    HUIT_B( "huit_b" ),
+    NEUF_FILE( "neuf_file" );
+
+    private final String _strColumn;
+
+    /**
+     * Constructor
+     * @param strColumn the name of the column
+     */
+    ProjectColumn( String strColumn )
+    {
+        _strColumn = strColumn;
+    }
+
+    /**
+     * Returns the name of the column
+     * @return the name of the column
+     */
+    public String getColumn( )
+    {
+        return _strColumn;
+    }
+}
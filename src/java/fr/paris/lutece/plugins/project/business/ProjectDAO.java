@@ -41,13 +41,19 @@ import fr.paris.lutece.util.sql.DAOUtil;
 import java.sql.Statement;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 import fr.paris.lutece.portal.business.file.File;
 import java.util.Optional;
+import java.util.function.Consumer;
 
-import org.apache.commons.lang3.StringUtils;
 
 /**
  * This class provides Data Access methods for Project objects
@@ -57,13 +63,41 @@ public final class ProjectDAO extends AbstractFilterDao implements IProjectDAO
     // Constants
     private static final String SQL_QUERY_INSERT = "INSERT INTO project_table ( un_entier, deux_sh, trois_md, quatre_lg, cinq_mail, six_url, sept_date, huit_b, neuf_file ) VALUES ( ?, ?, ?, ?, ?, ?, ?, ?, ? ) ";
     private static final String SQL_QUERY_DELETE = "DELETE FROM project_table WHERE id_project = ? ";
-    private static final String SQL_QUERY_UPDATE = "UPDATE project_table SET un_entier = ?, deux_sh = ?, trois_md = ?, quatre_lg = ?, cinq_mail = ?, six_url = ?, sept_date = ?, huit_b = ?, neuf_file = ? WHERE id_project = ?";
    
-	private static final String SQL_QUERY_SELECTALL = "SELECT id_project, un_entier, deux_sh, trois_md, quatre_lg, cinq_mail, six_url, sept_date, huit_b, neuf_file FROM project_table";
+	private static final String SQL_QUERY_SELECTALL = "SELECT id_project, un_entier, deux_sh, trois_md, quatre_lg, cinq_mail, six_url, sept_date, huit_b, neuf_file, version FROM project_table";
     private static final String SQL_QUERY_SELECTALL_ID = "SELECT id_project FROM project_table";
+    private static final String SQL_QUERY_COUNT = "SELECT COUNT(*) FROM project_table";
+    private static final String SQL_QUERY_SELECT_ID_AND_COLUMN = "SELECT id_project, %s FROM project_table";
+    private static final String SQL_COLUMN_ID = "id_project";
 
-    private static final String SQL_QUERY_SELECTALL_BY_IDS = SQL_QUERY_SELECTALL + " WHERE id_project IN (  ";
+    private static final String SQL_QUERY_SELECT_PROJECTION = "SELECT %s FROM project_table";
+    private static final String SQL_QUERY_SELECT_PROJECTION_BY_IDS = SQL_QUERY_SELECT_PROJECTION + " WHERE id_project IN ( %s )";
+    private static final String SQL_QUERY_SELECT_REFERENCE = String.format( SQL_QUERY_SELECT_PROJECTION, ProjectProjection.ID_LABEL.getColumns( ) );
 	private static final String SQL_QUERY_SELECT_BY_ID = SQL_QUERY_SELECTALL + " WHERE id_project = ?";
+	private static final String SQL_QUERY_SHOW_INDEX = "SHOW INDEX FROM project_table";
+	private static final String SQL_COLUMN_INDEX_COLUMN_NAME = "Column_name";
+	private static final String SQL_COLUMN_INDEX_SEQUENCE = "Seq_in_index";
+	private static final String SQL_COLUMN_INDEX_TYPE = "Index_type";
+	private static final String SQL_INDEX_TYPE_BTREE = "BTREE";
+	private static final String SQL_FULLTEXT_COLUMNS = "trois_md, quatre_lg";
+	private static final String ATTRIBUTE_VERSION = "version";
+	private static final String SQL_QUERY_SELECT_QUATRE_LG = "SELECT quatre_lg FROM project_table WHERE id_project = ?";
+	private static final String SQL_QUERY_SELECT_CURRENT_VERSION = "SELECT version FROM project_table WHERE id_project = ? AND version = ?";
+	private static final String SQL_QUERY_UPDATE_COLUMNS = "UPDATE project_table SET %s, version = version + 1 WHERE id_project = ? AND version = ?";
+	private static final String SQL_SET_COLUMN = " = ?";
+	private static final String SQL_COMMA = ", ";
+	private static final String SQL_PLACEHOLDER = "?";
+	
+	// sizes of the IN lists : the lists are padded to the next size, so that a few statements are parsed and planned
+	// once instead of one per number of ids, and the longer lists are read by chunks of the largest size
+	private static final int [ ] IN_LIST_SIZES = { 1, 8, 32, 128 };
+	private static final int MAX_IN_LIST_SIZE = IN_LIST_SIZES [IN_LIST_SIZES.length - 1];
+	
+	// SELECT by ids statements by projection and IN list size
+	private final Map<ProjectProjection,String [ ]> _mapSelectByIdsStatements = new ConcurrentHashMap<>( );
+	
+	// UPDATE statements by set of changed columns, at most one per subset of the nine columns
+	private final Map<Set<ProjectColumn>,String> _mapUpdateStatements = new ConcurrentHashMap<>( );
 
 
 	/**
@@ -71,7 +105,8 @@ public final class ProjectDAO extends AbstractFilterDao implements IProjectDAO
      */
 	public ProjectDAO() {
 
-		initMapSql(Project.class); //Maps with name and type of each databases column associated to the business class attributes 
+		initMapSql(Project.class, SQL_COLUMN_ID); //Maps with name and type of each databases column associated to the business class attributes 
+		initFullTextSearch(SQL_FULLTEXT_COLUMNS); //Long texts are searched through the FULLTEXT index instead of LIKE 
 	}
 
     /**
@@ -82,31 +117,145 @@ public final class ProjectDAO extends AbstractFilterDao implements IProjectDAO
     {
         try( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS, plugin ) )
         {
-            int nIndex = 1;
-            daoUtil.setInt( nIndex++ , project.getUnEntier( ) );
-            daoUtil.setString( nIndex++ , project.getDeuxSh( ) );
-            daoUtil.setString( nIndex++ , project.getTroisMd( ) );
-            daoUtil.setString( nIndex++ , project.getQuatreLg( ) );
-            daoUtil.setString( nIndex++ , project.getCinqMail( ) );
-            daoUtil.setString( nIndex++ , project.getSixUrl( ) );
-            daoUtil.setDate( nIndex++ , project.getSeptDate( ) );
-            daoUtil.setBoolean( nIndex++ , project.getHuitB( ) );
-            if ( project.getNeufFile( ) != null )
-		    {
-		    	daoUtil.setString( nIndex++ , project.getNeufFile( ).getFileKey( ) );
-		    }
-		    else
-		    {
-		    	daoUtil.setString( nIndex++ , null );
-		    }
+            setProjectParameters( daoUtil, project );
             
             daoUtil.executeUpdate( );
             if ( daoUtil.nextGeneratedKey( ) ) 
             {
                 project.setId( daoUtil.getGeneratedKeyInt( 1 ) );
             }
+            project.resetChangedColumns( );
+        }
+        
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void insertBatch( List<Project> listProjects, Plugin plugin )
+    {
+        if ( listProjects.isEmpty( ) )
+        {
+            return;
+        }
+        
+        try( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_INSERT, Statement.RETURN_GENERATED_KEYS, plugin ) )
+        {
+            for ( Project project : listProjects )
+            {
+                setProjectParameters( daoUtil, project );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+            
+            // generated keys are returned in the order of the batch
+            for ( Project project : listProjects )
+            {
+                if ( !daoUtil.nextGeneratedKey( ) )
+                {
+                    break;
+                }
+                project.setId( daoUtil.getGeneratedKeyInt( 1 ) );
+            }
+        }
+        listProjects.forEach( Project::resetChangedColumns );
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public List<Project> storeBatch( List<Project> listProjects, Plugin plugin )
+    {
+        List<Project> listRejected = new ArrayList<>( );
+        
+        // one JDBC batch per set of changed columns, so that the columns not read or not changed are not written
+        Map<Set<ProjectColumn>, List<Project>> mapProjectsByColumns = new LinkedHashMap<>( );
+        for ( Project project : listProjects )
+        {
+            mapProjectsByColumns.computeIfAbsent( project.changedColumns( ), setColumns -> new ArrayList<>( ) ).add( project );
+        }
+        
+        for ( Map.Entry<Set<ProjectColumn>, List<Project>> projectsByColumns : mapProjectsByColumns.entrySet( ) )
+        {
+            if ( projectsByColumns.getKey( ).isEmpty( ) )
+            {
+                // nothing to write, the rows must still have the version of their project
+                projectsByColumns.getValue( ).stream( ).filter( project -> !selectCurrentVersion( project, plugin ) ).forEach( listRejected::add );
+            }
+            else
+            {
+                storeBatch( projectsByColumns.getKey( ), projectsByColumns.getValue( ), listRejected, plugin );
+            }
+        }
+        
+        return listRejected;
+    }
+
+    /**
+     * Update the same columns of records in the table with a single JDBC batch
+     * @param setColumns the columns to write
+     * @param listProjects the projects to update
+     * @param listRejected the list to which the projects modified or removed since they were read are added
+     * @param plugin the Plugin
+     */
+    private void storeBatch( Set<ProjectColumn> setColumns, List<Project> listProjects, List<Project> listRejected, Plugin plugin )
+    {
+        String strUpdate = _mapUpdateStatements.computeIfAbsent( setColumns, ProjectDAO::buildUpdateStatement );
+        
+        try( DAOUtil daoUtil = new DAOUtil( strUpdate, plugin ) )
+        {
+            for ( Project project : listProjects )
+            {
+                int nIndex = 1;
+                for ( ProjectColumn column : setColumns )
+                {
+                    setColumnParameter( daoUtil, nIndex++, column, project );
+                }
+                daoUtil.setInt( nIndex++ , project.getId( ) );
+                daoUtil.setInt( nIndex , project.getVersion( ) );
+                daoUtil.addBatch( );
+            }
+            int [ ] updateCounts = daoUtil.executeBatch( );
+            
+            // a count of 0 means the row was modified or removed concurrently : its project keeps the version it was read with
+            for ( int i = 0; i < listProjects.size( ); i++ )
+            {
+                Project project = listProjects.get( i );
+                if ( i < updateCounts.length && updateCounts [i] != 0 )
+                {
+                    project.setVersion( project.getVersion( ) + 1 );
+                    project.resetChangedColumns( );
+                }
+                else
+                {
+                    listRejected.add( project );
+                }
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public void deleteBatch( List<Integer> listKeys, Plugin plugin )
+    {
+        if ( listKeys.isEmpty( ) )
+        {
+            return;
         }
         
+        try( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_DELETE, plugin ) )
+        {
+            for ( Integer nKey : listKeys )
+            {
+                daoUtil.setInt( 1 , nKey );
+                daoUtil.addBatch( );
+            }
+            daoUtil.executeBatch( );
+        }
     }
 
     /**
@@ -147,31 +296,55 @@ public final class ProjectDAO extends AbstractFilterDao implements IProjectDAO
      * {@inheritDoc }
      */
     @Override
-    public void store( Project project, Plugin plugin )
+    public boolean store( Project project, Plugin plugin )
     {
-        try( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_UPDATE, plugin ) )
+        Set<ProjectColumn> setChangedColumns = project.changedColumns( );
+        
+        if ( setChangedColumns.isEmpty( ) )
+        {
+        	// nothing to write, the row must still have the version of the project
+        	return selectCurrentVersion( project, plugin );
+        }
+        
+        String strUpdate = _mapUpdateStatements.computeIfAbsent( setChangedColumns, ProjectDAO::buildUpdateStatement );
+        
+        try( DAOUtil daoUtil = new DAOUtil( strUpdate, plugin ) )
         {
 	        int nIndex = 1;
-	        
-            	daoUtil.setInt( nIndex++ , project.getUnEntier( ) );
-            	daoUtil.setString( nIndex++ , project.getDeuxSh( ) );
-            	daoUtil.setString( nIndex++ , project.getTroisMd( ) );
-            	daoUtil.setString( nIndex++ , project.getQuatreLg( ) );
-            	daoUtil.setString( nIndex++ , project.getCinqMail( ) );
-            	daoUtil.setString( nIndex++ , project.getSixUrl( ) );
-            	daoUtil.setDate( nIndex++ , project.getSeptDate( ) );
-            	daoUtil.setBoolean( nIndex++ , project.getHuitB( ) );
-	        if ( project.getNeufFile( ) != null )
-		    {
-		    	daoUtil.setString( nIndex++ , project.getNeufFile( ).getFileKey( ) );
-		    }
-		    else
-		    {
-		    	daoUtil.setString( nIndex++ , null );
-		    }
-	        daoUtil.setInt( nIndex , project.getId( ) );
+	        for ( ProjectColumn column : setChangedColumns )
+	        {
+	        	setColumnParameter( daoUtil, nIndex++, column, project );
+	        }
+	        daoUtil.setInt( nIndex++ , project.getId( ) );
+	        daoUtil.setInt( nIndex , project.getVersion( ) );
 	
-	        daoUtil.executeUpdate( );
+	        if ( daoUtil.executeUpdate( ) == 0 )
+	        {
+	        	// deleted or updated by someone else since it was read
+	        	return false;
+	        }
+	        project.setVersion( project.getVersion( ) + 1 );
+	        project.resetChangedColumns( );
+	        
+	        return true;
+        }
+    }
+
+    /**
+     * Check that the row of a project still has the version of the project
+     * @param project the project
+     * @param plugin the Plugin
+     * @return true if the row exists with the version of the project
+     */
+    private boolean selectCurrentVersion( Project project, Plugin plugin )
+    {
+        try( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_CURRENT_VERSION, plugin ) )
+        {
+            daoUtil.setInt( 1 , project.getId( ) );
+            daoUtil.setInt( 2 , project.getVersion( ) );
+            daoUtil.executeQuery( );
+
+            return daoUtil.next( );
         }
     }
 
@@ -199,23 +372,57 @@ public final class ProjectDAO extends AbstractFilterDao implements IProjectDAO
      * {@inheritDoc }
      */
     @Override
-    public List<Integer> selectIdProjectsList( Plugin plugin,  Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode )
+    public void selectProjects( Plugin plugin, Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode, int nFetchSize, Consumer<Project> consumer )
     {
-        List<Integer> projectList = new ArrayList<>( );
+        KeysetCursor cursor = null;
+        boolean bSorted = isSeekSortColumn( strColumnToOrder, SQL_COLUMN_ID );
+        List<Project> listChunk = new ArrayList<>( nFetchSize );
         
-        String strSelectStatement =  prepareSelectStatement(SQL_QUERY_SELECTALL_ID, mapFilterCriteria, strColumnToOrder, strSortMode);  
+        do
+        {
+            listChunk.clear( );
+            FilterQueryPlan plan = getSeekPlan( SQL_QUERY_SELECTALL, SQL_COLUMN_ID, mapFilterCriteria, strColumnToOrder, strSortMode, cursor );
+            String strLastSortValue = null;
+            
+            try( DAOUtil daoUtil = new DAOUtil( plan.getSql( ), plugin ) )
+            {
+                int nIndex = plan.bindFilterValues( daoUtil, mapFilterCriteria );
+                nIndex = bindSeekParameters( daoUtil, nIndex, SQL_COLUMN_ID, strColumnToOrder, cursor );
+                daoUtil.setInt( nIndex, nFetchSize );
+                daoUtil.executeQuery(  );
+                
+                while ( daoUtil.next(  ) )
+                {
+                    listChunk.add( loadFromDaoUtil( daoUtil ) );
+                    strLastSortValue = bSorted ? daoUtil.getString( strColumnToOrder ) : null;
+                }
+            }
+            
+            if ( !listChunk.isEmpty( ) )
+            {
+                cursor = new KeysetCursor( listChunk.get( listChunk.size( ) - 1 ).getId( ), strLastSortValue );
+            }
+            
+            // the connection is released before handing the rows to the consumer
+            listChunk.forEach( consumer );
+        }
+        while ( listChunk.size( ) == nFetchSize );
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public IdList selectIdProjectsList( Plugin plugin,  Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode )
+    {
+        IdList.Builder projectList = new IdList.Builder( );
         
-        try( DAOUtil daoUtil = new DAOUtil( strSelectStatement, plugin ) )
+        FilterQueryPlan plan = getSelectPlan(SQL_QUERY_SELECTALL_ID, mapFilterCriteria, strColumnToOrder, strSortMode);  
+        
+        try( DAOUtil daoUtil = new DAOUtil( plan.getSql( ), plugin ) )
         {
         
-        	int nIndex = 1;
-    	        
-   	        for(Map.Entry<String, String> filter : mapFilterCriteria.entrySet()) {
-   	        	
-   	        	if(StringUtils.isNotBlank(filter.getValue())  && _mapSql.containsKey(filter.getKey())) {
-   	        		daoUtil.setString( nIndex++ , filter.getValue() );
-   	        	}
-   	        }
+        	plan.bindFilterValues( daoUtil, mapFilterCriteria );
     	        
 	        daoUtil.executeQuery(  );
 	
@@ -224,10 +431,100 @@ public final class ProjectDAO extends AbstractFilterDao implements IProjectDAO
 	            projectList.add( daoUtil.getInt( 1 ) );
 	        }
 	
-	        return projectList;
+	        return projectList.build( );
         }
     }
     
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public int selectIdProjectsCount( Plugin plugin, Map <String,String> mapFilterCriteria )
+    {
+        FilterQueryPlan plan = getCountPlan( SQL_QUERY_COUNT, mapFilterCriteria );
+        
+        try( DAOUtil daoUtil = new DAOUtil( plan.getSql( ), plugin ) )
+        {
+        	plan.bindFilterValues( daoUtil, mapFilterCriteria );
+        	daoUtil.executeQuery( );
+        	
+        	return daoUtil.next( ) ? daoUtil.getInt( 1 ) : 0;
+        }
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public IdList selectIdProjectsRange( Plugin plugin, Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode, int nOffset, int nLimit )
+    {
+        IdList.Builder listIds = new IdList.Builder( nLimit );
+        FilterQueryPlan plan = getRangePlan( SQL_QUERY_SELECTALL_ID, mapFilterCriteria, strColumnToOrder, strSortMode );
+        
+        try( DAOUtil daoUtil = new DAOUtil( plan.getSql( ), plugin ) )
+        {
+        	int nIndex = plan.bindFilterValues( daoUtil, mapFilterCriteria );
+        	daoUtil.setInt( nIndex++, nLimit );
+        	daoUtil.setInt( nIndex, nOffset );
+        	daoUtil.executeQuery( );
+        	
+        	while ( daoUtil.next( ) )
+        	{
+        		listIds.add( daoUtil.getInt( 1 ) );
+        	}
+        }
+        
+        return listIds.build( );
+    }
+    
+    /**
+     * {@inheritDoc }
+     */
+    @Override
+    public KeysetPage<Integer> selectIdProjectsPage( Plugin plugin, Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode, String strCursor, int nPageSize )
+    {
+        List<Integer> listIds = new ArrayList<>( );
+        KeysetCursor cursor = KeysetCursor.decode( strCursor );
+        boolean bSorted = isSeekSortColumn( strColumnToOrder, SQL_COLUMN_ID );
+        
+        if ( !isValidCursor( strColumnToOrder, SQL_COLUMN_ID, cursor ) )
+        {
+        	// a tampered token restarts from the first page
+        	cursor = null;
+        }
+        
+        // the sort value of each row is read to build the token of the next page
+        String strSelect = bSorted ? String.format( SQL_QUERY_SELECT_ID_AND_COLUMN, strColumnToOrder ) : SQL_QUERY_SELECTALL_ID;
+        FilterQueryPlan plan = getSeekPlan( strSelect, SQL_COLUMN_ID, mapFilterCriteria, strColumnToOrder, strSortMode, cursor );
+        String strNextCursor = null;
+        int nLastId = 0;
+        String strLastSortValue = null;
+        
+        try( DAOUtil daoUtil = new DAOUtil( plan.getSql( ), plugin ) )
+        {
+        	int nIndex = plan.bindFilterValues( daoUtil, mapFilterCriteria );
+   	        nIndex = bindSeekParameters( daoUtil, nIndex, SQL_COLUMN_ID, strColumnToOrder, cursor );
+   	        
+   	        // one more row is read to know if a next page exists
+   	        daoUtil.setInt( nIndex, nPageSize + 1 );
+	        daoUtil.executeQuery(  );
+	
+	        while ( daoUtil.next(  ) )
+	        {
+	        	if ( listIds.size( ) == nPageSize )
+	        	{
+	        		strNextCursor = new KeysetCursor( nLastId, strLastSortValue ).encode( );
+	        		break;
+	        	}
+	        	nLastId = daoUtil.getInt( 1 );
+	        	strLastSortValue = bSorted ? daoUtil.getString( 2 ) : null;
+	            listIds.add( nLastId );
+	        }
+        }
+        
+        return new KeysetPage<>( listIds, strNextCursor );
+    }
+    
     /**
      * {@inheritDoc }
      */
@@ -235,7 +532,7 @@ public final class ProjectDAO extends AbstractFilterDao implements IProjectDAO
     public ReferenceList selectProjectsReferenceList( Plugin plugin )
     {
         ReferenceList projectList = new ReferenceList();
-        try( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECTALL, plugin ) )
+        try( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_REFERENCE, plugin ) )
         {
 	        daoUtil.executeQuery(  );
 	
@@ -253,49 +550,256 @@ public final class ProjectDAO extends AbstractFilterDao implements IProjectDAO
      */
 	@Override
 	public List<Project> selectProjectsListByIds( Plugin plugin, List<Integer> listIds ) {
-		List<Project> projectList = new ArrayList<>(  );
+		return selectProjectsListByIds( plugin, listIds, ProjectProjection.SUMMARY );
+	}
+	
+    /**
+     * {@inheritDoc }
+     */
+	@Override
+	public List<Project> selectProjectsListByIds( Plugin plugin, List<Integer> listIds, ProjectProjection projection ) {
 		
-		StringBuilder builder = new StringBuilder( );
-
-		if ( !listIds.isEmpty( ) )
+		if ( listIds.isEmpty( ) )
 		{
-			for( int i = 0 ; i < listIds.size(); i++ ) {
-			    builder.append( "?," );
+			return new ArrayList<>( );
+		}
+		
+		// position of each distinct id in the request, the rows are put back in that order as they are read
+		Map<Integer, Integer> mapPositions = new HashMap<>( listIds.size( ) * 4 / 3 + 1 );
+		IdList.Builder distinctIds = new IdList.Builder( listIds.size( ) );
+		for ( Integer nId : listIds )
+		{
+			if ( mapPositions.putIfAbsent( nId, mapPositions.size( ) ) == null )
+			{
+				distinctIds.add( nId );
 			}
-	
-			String placeHolders =  builder.deleteCharAt( builder.length( ) -1 ).toString( );
-			String stmt = SQL_QUERY_SELECTALL_BY_IDS + placeHolders + ")";
-			
+		}
+		IdList listDistinctIds = distinctIds.build( );
+		Project [ ] projects = new Project [ listDistinctIds.size( )];
+		String [ ] statements = _mapSelectByIdsStatements.computeIfAbsent( projection, ProjectDAO::buildSelectByIdsStatements );
+		
+		for ( int nStart = 0; nStart < listDistinctIds.size( ); nStart += MAX_IN_LIST_SIZE )
+		{
+			int nCount = Math.min( MAX_IN_LIST_SIZE, listDistinctIds.size( ) - nStart );
+			int nSizeIndex = getInListSizeIndex( nCount );
 			
-	        try ( DAOUtil daoUtil = new DAOUtil( stmt, plugin ) )
+	        try ( DAOUtil daoUtil = new DAOUtil( statements [nSizeIndex], plugin ) )
 	        {
-	        	int index = 1;
-				for( Integer n : listIds ) {
-					daoUtil.setInt(  index++, n ); 
-				}
+	        	// the list is padded with its last id
+	        	for ( int i = 0; i < IN_LIST_SIZES [nSizeIndex]; i++ )
+	        	{
+	        		daoUtil.setInt( i + 1, listDistinctIds.getInt( nStart + Math.min( i, nCount - 1 ) ) );
+	        	}
 	        	
 	        	daoUtil.executeQuery(  );
 	        	while ( daoUtil.next(  ) )
 		        {
-		            projectList.add( loadFromDaoUtil( daoUtil ) );
+	        		Project project = loadFromDaoUtil( daoUtil, projection );
+	        		projects [mapPositions.get( project.getId( ) )] = project;
 		        }
 	        }
-	    }
+		}
+        
+        // the removed projects leave a hole
+		List<Project> projectList = new ArrayList<>( projects.length );
+		for ( Project project : projects )
+		{
+			if ( project != null )
+			{
+				projectList.add( project );
+			}
+		}
 		return projectList;
 		
 	}
+	
+	/**
+	 * Build the SELECT by ids statements of a projection, one per IN list size
+	 * @param projection the projection
+	 * @return the statements, in the order of IN_LIST_SIZES
+	 */
+	private static String [ ] buildSelectByIdsStatements( ProjectProjection projection )
+	{
+		String [ ] statements = new String [ IN_LIST_SIZES.length];
+		for ( int i = 0; i < IN_LIST_SIZES.length; i++ )
+		{
+			String strPlaceholders = String.join( SQL_COMMA, Collections.nCopies( IN_LIST_SIZES [i], SQL_PLACEHOLDER ) );
+			statements [i] = String.format( SQL_QUERY_SELECT_PROJECTION_BY_IDS, projection.getColumns( ), strPlaceholders );
+		}
+		return statements;
+	}
+	
+	/**
+	 * Get the smallest IN list size that holds a number of ids
+	 * @param nCount the number of ids, at most MAX_IN_LIST_SIZE
+	 * @return the index of the size in IN_LIST_SIZES
+	 */
+	private static int getInListSizeIndex( int nCount )
+	{
+		int nIndex = 0;
+		while ( IN_LIST_SIZES [nIndex] < nCount )
+		{
+			nIndex++;
+		}
+		return nIndex;
+	}
+	
+    /**
+     * {@inheritDoc }
+     */
+	@Override
+	public String selectQuatreLg( int nKey, Plugin plugin ) {
+		
+		try( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SELECT_QUATRE_LG, plugin ) )
+		{
+			daoUtil.setInt( 1 , nKey );
+			daoUtil.executeQuery( );
+			
+			return daoUtil.next( ) ? daoUtil.getString( 1 ) : null;
+		}
+	}
+
+
+	/**
+	 * Get the searchable columns which are not the first column of a BTREE index (MySQL SHOW INDEX).
+	 * A FULLTEXT index only serves the "fulltext" criteria, not the LIKE filters nor the sorts on its columns.
+	 * @param plugin the Plugin
+	 * @return the names of the columns without a supporting index
+	 */
+	public List<String> selectUnindexedSearchColumns( Plugin plugin ) {
+		
+		List<String> listColumns = getSearchableColumns( );
+		// the primary key is always indexed
+		listColumns.remove( SQL_COLUMN_ID );
+		// the version is only read and compared by primary key
+		listColumns.remove( ATTRIBUTE_VERSION );
+		
+		try( DAOUtil daoUtil = new DAOUtil( SQL_QUERY_SHOW_INDEX, plugin ) )
+		{
+			daoUtil.executeQuery( );
+			
+			while ( daoUtil.next( ) )
+			{
+				// only the first column of a BTREE index serves the filters and the sorts on the column
+				if ( daoUtil.getInt( SQL_COLUMN_INDEX_SEQUENCE ) == 1 && SQL_INDEX_TYPE_BTREE.equals( daoUtil.getString( SQL_COLUMN_INDEX_TYPE ) ) )
+				{
+					listColumns.remove( daoUtil.getString( SQL_COLUMN_INDEX_COLUMN_NAME ) );
+				}
+			}
+		}
+		
+		return listColumns;
+	}
 
+	/**
+	 * Bind the columns of the project, in the order of the INSERT statement
+	 * @param daoUtil the daoUtil
+	 * @param project the project
+	 * @return the index of the next parameter to bind
+	 */
+	private int setProjectParameters( DAOUtil daoUtil, Project project ) {
+		
+		int nIndex = 1;
+		
+		for ( ProjectColumn column : ProjectColumn.values( ) )
+		{
+			setColumnParameter( daoUtil, nIndex++, column, project );
+		}
+		
+		return nIndex;
+	}
+	
+	/**
+	 * Bind the value of a column of the project
+	 * @param daoUtil the daoUtil
+	 * @param nIndex the index of the parameter
+	 * @param column the column
+	 * @param project the project
+	 */
+	private static void setColumnParameter( DAOUtil daoUtil, int nIndex, ProjectColumn column, Project project ) {
+		
+		switch( column )
+		{
+			case UN_ENTIER:
+				daoUtil.setInt( nIndex , project.getUnEntier( ) );
+				break;
+			case DEUX_SH:
+				daoUtil.setString( nIndex , project.getDeuxSh( ) );
+				break;
+			case TROIS_MD:
+				daoUtil.setString( nIndex , project.getTroisMd( ) );
+				break;
+			case QUATRE_LG:
+				daoUtil.setString( nIndex , project.getQuatreLg( ) );
+				break;
+			case CINQ_MAIL:
+				daoUtil.setString( nIndex , project.getCinqMail( ) );
+				break;
+			case SIX_URL:
+				daoUtil.setString( nIndex , project.getSixUrl( ) );
+				break;
+			case SEPT_DATE:
+				daoUtil.setDate( nIndex , project.getSeptDate( ) );
+				break;
+			case HUIT_B:
+				daoUtil.setBoolean( nIndex , project.getHuitB( ) );
+				break;
+			case NEUF_FILE:
+				daoUtil.setString( nIndex , ( project.getNeufFile( ) != null ) ? project.getNeufFile( ).getFileKey( ) : null );
+				break;
+			default:
+				throw new IllegalArgumentException( column.name( ) );
+		}
+	}
+	
+	/**
+	 * Build the UPDATE statement of a set of columns
+	 * @param setColumns the columns to update
+	 * @return the statement
+	 */
+	private static String buildUpdateStatement( Set<ProjectColumn> setColumns ) {
+		
+		return String.format( SQL_QUERY_UPDATE_COLUMNS,
+				setColumns.stream( ).map( column -> column.getColumn( ) + SQL_SET_COLUMN ).collect( Collectors.joining( SQL_COMMA ) ) );
+	}
 
 	private Project loadFromDaoUtil (DAOUtil daoUtil) {
 		
+		return loadFromDaoUtil( daoUtil, ProjectProjection.FULL );
+	}
+	
+	/**
+	 * Build a project from the columns of the projection
+	 * @param daoUtil the daoUtil positioned on a row
+	 * @param projection the projection used by the query
+	 * @return the project, with a null quatre_lg marked as not read if the projection does not have it
+	 */
+	private Project loadFromDaoUtil (DAOUtil daoUtil, ProjectProjection projection) {
+		
 		Project project = new Project(  );
 		int nIndex = 1;
 		
 		project.setId( daoUtil.getInt( nIndex++ ) );
+		
+		if ( projection == ProjectProjection.ID_LABEL )
+		{
+			project.setDeuxSh( daoUtil.getString( nIndex ) );
+			project.markQuatreLgNotRead( );
+			project.resetChangedColumns( );
+			return project;
+		}
+		
 		project.setUnEntier( daoUtil.getInt( nIndex++ ) );
 		project.setDeuxSh( daoUtil.getString( nIndex++ ) );
 		project.setTroisMd( daoUtil.getString( nIndex++ ) );
-		project.setQuatreLg( daoUtil.getString( nIndex++ ) );
+		if ( projection == ProjectProjection.FULL )
+		{
+			project.setQuatreLg( daoUtil.getString( nIndex++ ) );
+		}
+		else
+		{
+			project.markQuatreLgNotRead( );
+		}
 		project.setCinqMail( daoUtil.getString( nIndex++ ) );
 		project.setSixUrl( daoUtil.getString( nIndex++ ) );
 		project.setSeptDate( daoUtil.getDate( nIndex++ ) );
@@ -303,6 +807,8 @@ public final class ProjectDAO extends AbstractFilterDao implements IProjectDAO
 		File fileNeufFile = new File();
 		fileNeufFile.setFileKey( daoUtil.getString( nIndex ) );
 		project.setNeufFile( fileNeufFile );
+		project.setVersion( daoUtil.getInt( ++nIndex ) );
+		project.resetChangedColumns( );
 		
 		return project;
 	}
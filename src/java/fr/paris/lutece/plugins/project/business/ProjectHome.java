@@ -35,29 +35,58 @@
 
  package fr.paris.lutece.plugins.project.business;
 
+import fr.paris.lutece.plugins.project.service.ProjectCacheService;
 import fr.paris.lutece.portal.service.plugin.Plugin;
 import fr.paris.lutece.portal.service.plugin.PluginService;
 import fr.paris.lutece.portal.service.spring.SpringContextService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.util.ReferenceList;
+import fr.paris.lutece.util.sql.TransactionManager;
 import fr.paris.lutece.portal.service.file.FileService;
 import fr.paris.lutece.portal.service.file.IFileStoreServiceProvider;
 import org.apache.commons.fileupload.FileItem;
 import fr.paris.lutece.portal.business.file.File;
 
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 /**
  * This class provides instances management methods (create, find, ...) for Project objects
  */
 public final class ProjectHome
 {
+    // Properties
+    private static final String PROPERTY_BATCH_SIZE = "project.batch.size";
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final String PROPERTY_FETCH_SIZE = "project.fetch.size";
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+    private static final String PROPERTY_SEARCH_CACHE_MAX_IDS = "project.searchCache.maxIds";
+    private static final int DEFAULT_SEARCH_CACHE_MAX_IDS = 1000000;
+    private static final String PROPERTY_SEARCH_CACHE_TTL = "project.searchCache.timeToLive";
+    private static final int DEFAULT_SEARCH_CACHE_TTL = 60;
+
+    // Kinds of cached search results
+    private static final String SEARCH_IDS = "ids";
+    private static final String SEARCH_COUNT = "count";
+    private static final String SEARCH_RANGE = "range";
+
     // Static variable pointed at the DAO instance
     private static IProjectDAO _dao = SpringContextService.getBean( "project.projectDAO" );
     private static Plugin _plugin = PluginService.getPlugin( "project" );
 	private static IFileStoreServiceProvider _fileStoreService = FileService.getInstance( ).getFileStoreServiceProvider( );
+    private static ProjectSearchCache _searchCache = new ProjectSearchCache(
+            Math.max( 0, AppPropertiesService.getPropertyInt( PROPERTY_SEARCH_CACHE_MAX_IDS, DEFAULT_SEARCH_CACHE_MAX_IDS ) ),
+            Math.max( 0, AppPropertiesService.getPropertyInt( PROPERTY_SEARCH_CACHE_TTL, DEFAULT_SEARCH_CACHE_TTL ) ) * 1000L );
+    private static List<IProjectChangeListener> _listChangeListeners = new CopyOnWriteArrayList<>( );
+    // incremented by each eviction from the projects cache, guarded by the class lock
+    private static long _lCacheGeneration;
 
     /**
      * Private constructor - this class need not be instantiated
@@ -74,20 +103,27 @@ public final class ProjectHome
     public static Project create( Project project )
     {
         _dao.insert( project, _plugin );
+        invalidateSearches( );
 
         return project;
     }
 
     /**
-     * Update of the project which is specified in parameter
+     * Update of the project which is specified in parameter, unless it has been modified since it was read.
+     * The project must have been loaded with findByPrimaryKey or a list finder : a project built in memory has the version 0,
+     * which is rejected once the project has been updated.
      * @param project The instance of the Project which contains the data to store
-     * @return The instance of the  project which has been updated
+     * @return true if the project has been updated, false if it has been modified or removed by someone else meanwhile
      */
-    public static Project update( Project project )
+    public static boolean update( Project project )
     {
-        _dao.store( project, _plugin );
+        boolean bUpdated = _dao.store( project, _plugin );
+        // a failed update means the cached project may be stale as well
+        removeFromCache( project.getId( ) );
+        // after the eviction, so that a page rendered meanwhile does not read the old project
+        invalidateSearches( );
 
-        return project;
+        return bUpdated;
     }
 
     /**
@@ -97,6 +133,99 @@ public final class ProjectHome
     public static void remove( int nKey )
     {
         _dao.delete( nKey, _plugin );
+        removeFromCache( nKey );
+        invalidateSearches( );
+    }
+
+    /**
+     * Create the projects with batched statements. Each batch is committed in its own transaction :
+     * if a batch fails, the previous ones stay committed.
+     * @param listProjects The projects to create
+     * @return The projects with their primary key.
+     */
+    public static List<Project> createAll( List<Project> listProjects )
+    {
+        try
+        {
+            executeByBatch( listProjects, _dao::insertBatch );
+        }
+        finally
+        {
+            // the batches committed before a failure are written as well
+            invalidateSearches( );
+        }
+
+        return listProjects;
+    }
+
+    /**
+     * Update the projects with batched statements. Each batch is committed in its own transaction :
+     * if a batch fails, the previous ones stay committed.
+     * A project modified or removed by someone else since it was read is not updated and keeps its version.
+     * As for {@link #update}, the projects must have been loaded before being modified.
+     * @param listProjects The projects to update
+     * @return The projects which have not been updated, empty if all the projects have been updated
+     */
+    public static List<Project> updateAll( List<Project> listProjects )
+    {
+        List<Project> listRejected = new ArrayList<>( );
+        try
+        {
+            executeByBatch( listProjects, ( listBatch, plugin ) -> listRejected.addAll( _dao.storeBatch( listBatch, plugin ) ) );
+        }
+        finally
+        {
+            listProjects.forEach( project -> removeFromCache( project.getId( ) ) );
+            invalidateSearches( );
+        }
+
+        return listRejected;
+    }
+
+    /**
+     * Remove the projects whose identifiers are specified in parameter with batched statements.
+     * Each batch is committed in its own transaction : if a batch fails, the previous ones stay committed.
+     * @param listKeys The project Ids
+     */
+    public static void removeAll( List<Integer> listKeys )
+    {
+        try
+        {
+            executeByBatch( listKeys, _dao::deleteBatch );
+        }
+        finally
+        {
+            listKeys.forEach( ProjectHome::removeFromCache );
+            invalidateSearches( );
+        }
+    }
+
+    /**
+     * Split the list in batches of project.batch.size items and run each batch in a transaction
+     * @param <T> the type of the items
+     * @param list the items
+     * @param batchOperation the DAO operation to run on each batch
+     */
+    private static <T> void executeByBatch( List<T> list, BiConsumer<List<T>, Plugin> batchOperation )
+    {
+        int nBatchSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
+
+        for ( int nStart = 0; nStart < list.size( ); nStart += nBatchSize )
+        {
+            List<T> listBatch = list.subList( nStart, Math.min( nStart + nBatchSize, list.size( ) ) );
+
+            TransactionManager.beginTransaction( _plugin );
+            try
+            {
+                batchOperation.accept( listBatch, _plugin );
+                TransactionManager.commitTransaction( _plugin );
+            }
+            catch( Exception e )
+            {
+                TransactionManager.rollBack( _plugin, e );
+                throw e;
+            }
+        }
     }
 
     /**
@@ -106,7 +235,17 @@ public final class ProjectHome
      */
     public static Optional<Project> findByPrimaryKey( int nKey )
     {
-        return _dao.load( nKey, _plugin );
+        Project project = getFromCache( nKey );
+
+        if ( project == null )
+        {
+            long lGeneration = currentCacheGeneration( );
+            project = _dao.load( nKey, _plugin ).orElse( null );
+            putInCache( project, ProjectProjection.FULL, lGeneration );
+        }
+
+        // callers modify the project they get, the cached one is never handed out
+        return Optional.ofNullable( project ).map( Project::copy );
     }
 
     /**
@@ -118,6 +257,42 @@ public final class ProjectHome
         return _dao.selectProjectsList( _plugin );
     }
     
+    /**
+     * Hand each project fitting with the search criteria to the consumer, without loading all of them in memory.
+     * The rows are read by chunks of project.fetch.size.
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @param consumer the consumer of each project
+     */
+    public static void forEachProject( Map <String,String> mapFilterCriteria, Consumer<Project> consumer )
+    {
+        forEachProject( mapFilterCriteria, AppPropertiesService.getPropertyInt( PROPERTY_FETCH_SIZE, DEFAULT_FETCH_SIZE ), consumer );
+    }
+
+    /**
+     * Hand each project fitting with the search criteria to the consumer, without loading all of them in memory
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @param nFetchSize the number of rows read per query
+     * @param consumer the consumer of each project
+     */
+    public static void forEachProject( Map <String,String> mapFilterCriteria, int nFetchSize, Consumer<Project> consumer )
+    {
+        _dao.selectProjects( _plugin, mapFilterCriteria, null, null, Math.max( 1, nFetchSize ), consumer );
+    }
+
+    /**
+     * Hand each project fitting with the search criteria to the consumer in the given order, without loading all of them in memory.
+     * The rows are read by chunks of project.fetch.size.
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @param strColumnToOrder contains the column name to use for orderBy statement (may be null)
+     * @param strSortMode contains the sortMode : ASC or DESC (may be null)
+     * @param consumer the consumer of each project
+     */
+    public static void forEachProject( Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode, Consumer<Project> consumer )
+    {
+        int nFetchSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_FETCH_SIZE, DEFAULT_FETCH_SIZE ) );
+        _dao.selectProjects( _plugin, mapFilterCriteria, strColumnToOrder, strSortMode, nFetchSize, consumer );
+    }
+    
         /**
      * Load the id of all the types objects and returns them as a list
      * @param mapFilterCriteria contains search bar names/values inputs 
@@ -125,9 +300,96 @@ public final class ProjectHome
      * @param strSortMode contains the sortMode in case of sorting request : ASC or DESC (must be null)
      * @return the list which contains the id of all the project objects
      */
-    public static List<Integer> getIdProjectsList( Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode )
+    public static IdList getIdProjectsList( Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode )
+    {
+        String strKey = ProjectSearchCache.buildKey( SEARCH_IDS, mapFilterCriteria, strColumnToOrder, strSortMode );
+        int [ ] ids = _searchCache.get( strKey );
+
+        if ( ids == null )
+        {
+            long lGeneration = _searchCache.currentGeneration( );
+            ids = _dao.selectIdProjectsList( _plugin, mapFilterCriteria, strColumnToOrder, strSortMode ).sharedArray( );
+            _searchCache.put( strKey, lGeneration, ids );
+        }
+
+        // the cached array is shared, the list cannot modify it
+        return IdList.wrap( ids );
+    }
+    
+    /**
+     * Count the project objects fitting with the search criteria
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @return the number of matching project objects
+     */
+    public static int getIdProjectsCount( Map <String,String> mapFilterCriteria )
+    {
+        String strKey = ProjectSearchCache.buildKey( SEARCH_COUNT, mapFilterCriteria, null, null );
+        int [ ] count = _searchCache.get( strKey );
+
+        if ( count == null )
+        {
+            long lGeneration = _searchCache.currentGeneration( );
+            count = new int [ ] { _dao.selectIdProjectsCount( _plugin, mapFilterCriteria ) };
+            _searchCache.put( strKey, lGeneration, count );
+        }
+
+        return count [0];
+    }
+    
+    /**
+     * Load the ids of one numbered page of the project objects fitting with the search criteria
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @param strColumnToOrder contains the column name to use for orderBy statement (may be null)
+     * @param strSortMode contains the sortMode : ASC or DESC (may be null)
+     * @param nOffset the number of matching rows to skip
+     * @param nLimit the maximum number of ids to return
+     * @return the list of ids of the page
+     */
+    public static IdList getIdProjectsRange( Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode, int nOffset, int nLimit )
+    {
+        // the page is a slice of the whole list when it is cached
+        int [ ] ids = _searchCache.get( ProjectSearchCache.buildKey( SEARCH_IDS, mapFilterCriteria, strColumnToOrder, strSortMode ) );
+        if ( ids != null )
+        {
+            int nFrom = Math.min( Math.max( 0, nOffset ), ids.length );
+            return IdList.wrap( ids ).subList( nFrom, Math.min( ids.length, nFrom + Math.max( 0, nLimit ) ) );
+        }
+
+        String strKey = ProjectSearchCache.buildKey( SEARCH_RANGE, mapFilterCriteria, strColumnToOrder, strSortMode, nOffset, nLimit );
+        ids = _searchCache.get( strKey );
+
+        if ( ids == null )
+        {
+            long lGeneration = _searchCache.currentGeneration( );
+            ids = _dao.selectIdProjectsRange( _plugin, mapFilterCriteria, strColumnToOrder, strSortMode, nOffset, nLimit ).sharedArray( );
+            _searchCache.put( strKey, lGeneration, ids );
+        }
+
+        return IdList.wrap( ids );
+    }
+    
+    /**
+     * Load one page of the ids of the project objects fitting with the search criteria, using a keyset (seek) pagination
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @param strColumnToOrder contains the column name to use for orderBy statement (may be null)
+     * @param strSortMode contains the sortMode : ASC or DESC (may be null)
+     * @param strCursor the token returned with the previous page, null for the first page
+     * @param nPageSize the maximum number of ids of the page
+     * @return the page of ids with the token of the next page
+     */
+    public static KeysetPage<Integer> getIdProjectsPage( Map <String,String> mapFilterCriteria, String strColumnToOrder, String strSortMode, String strCursor, int nPageSize )
     {
-        return _dao.selectIdProjectsList( _plugin,mapFilterCriteria,strColumnToOrder,strSortMode );
+        return _dao.selectIdProjectsPage( _plugin, mapFilterCriteria, strColumnToOrder, strSortMode, strCursor, nPageSize );
+    }
+    
+    /**
+     * Check that the values of the search criteria can be parsed for the type of their column
+     * @param mapFilterCriteria contains search bar names/values inputs 
+     * @return the names of the criteria whose value is invalid, empty if all the values are valid
+     */
+    public static List<String> checkFilterCriteria( Map <String,String> mapFilterCriteria )
+    {
+        return _dao.checkFilterCriteria( mapFilterCriteria );
     }
     
     /**
@@ -151,12 +413,166 @@ public final class ProjectHome
     /**
      * Load the data of all the avant objects and returns them as a list
      * @param listIds liste of ids
-     * @return the list which contains the data of all the avant objects
+     * @return the list which contains the data of all the avant objects, in the order of the ids
      */
     public static List<Project> getProjectsListByIds( List<Integer> listIds )
     {
-        return _dao.selectProjectsListByIds( _plugin, listIds );
+        return getProjectsListByIds( listIds, ProjectProjection.SUMMARY );
     }
 
-}
+    /**
+     * Load the columns of the projection for the project objects and returns them as a list.
+     * The cached projects are taken from the cache, the others are read with a single query.
+     * A project cached with all its columns serves every projection, a SUMMARY project only the SUMMARY projection.
+     * @param listIds liste of ids
+     * @param projection the columns to read
+     * @return the list which contains the data of the project objects, in the order of the ids, once per id
+     */
+    public static List<Project> getProjectsListByIds( List<Integer> listIds, ProjectProjection projection )
+    {
+        if ( projection == ProjectProjection.ID_LABEL )
+        {
+            // too partial to be cached
+            return _dao.selectProjectsListByIds( _plugin, listIds, projection );
+        }
+
+        Map<Integer, Project> mapProjects = new HashMap<>( );
+        List<Integer> listMissingIds = new ArrayList<>( );
 
+        for ( Integer nId : listIds )
+        {
+            Project project = getFromCache( nId, projection );
+            if ( project != null )
+            {
+                mapProjects.put( nId, project );
+            }
+            else
+            {
+                listMissingIds.add( nId );
+            }
+        }
+
+        if ( !listMissingIds.isEmpty( ) )
+        {
+            long lGeneration = currentCacheGeneration( );
+            for ( Project project : _dao.selectProjectsListByIds( _plugin, listMissingIds, projection ) )
+            {
+                putInCache( project, projection, lGeneration );
+                mapProjects.put( project.getId( ), project );
+            }
+        }
+
+        List<Project> listProjects = new ArrayList<>( mapProjects.size( ) );
+        for ( Integer nId : listIds )
+        {
+            // removed from the map so that a repeated id is returned once, like the DAO does
+            Project project = mapProjects.remove( nId );
+            if ( project != null )
+            {
+                listProjects.add( project.copy( ) );
+            }
+        }
+
+        return listProjects;
+    }
+
+    /**
+     * Load the quatre_lg long text of a project, for the projects read without it
+     * @param nKey The project primary key
+     * @return the value of quatre_lg
+     */
+    public static String findQuatreLg( int nKey )
+    {
+        return _dao.selectQuatreLg( nKey, _plugin );
+    }
+
+    /**
+     * Register a listener of the writes on the projects
+     * @param listener the listener
+     */
+    public static void addChangeListener( IProjectChangeListener listener )
+    {
+        _listChangeListeners.add( listener );
+    }
+
+    /**
+     * Drop the cached search results and notify the listeners, after a write on the projects
+     */
+    private static void invalidateSearches( )
+    {
+        _searchCache.invalidate( );
+        _listChangeListeners.forEach( IProjectChangeListener::onProjectsChanged );
+    }
+
+    /**
+     * Get a project read with all its columns from the cache
+     * @param nKey the project primary key
+     * @return the cached project, or null
+     */
+    private static Project getFromCache( int nKey )
+    {
+        return getFromCache( nKey, ProjectProjection.FULL );
+    }
+
+    /**
+     * Get a project from the cache, with at least the columns of a projection
+     * @param nKey the project primary key
+     * @param projection the projection
+     * @return the cached project, or null
+     */
+    private static Project getFromCache( int nKey, ProjectProjection projection )
+    {
+        ProjectCacheService cacheService = ProjectCacheService.getInstance( );
+        Project project = (Project) cacheService.getFromCache( ProjectCacheService.getKey( nKey ) );
+
+        if ( project == null && projection != ProjectProjection.FULL )
+        {
+            project = (Project) cacheService.getFromCache( ProjectCacheService.getKey( nKey, projection ) );
+        }
+
+        return project;
+    }
+
+    /**
+     * Returns the current generation of the projects cache, to read before loading the projects to put in the cache
+     * @return the generation
+     */
+    private static synchronized long currentCacheGeneration( )
+    {
+        return _lCacheGeneration;
+    }
+
+    /**
+     * Put a project in the cache under the key of the projection it was read with,
+     * unless a project has been evicted since it was read : the read may have returned the row before the write
+     * @param project the project, may be null
+     * @param projection the projection
+     * @param lGeneration the generation read before loading the project
+     */
+    private static synchronized void putInCache( Project project, ProjectProjection projection, long lGeneration )
+    {
+        if ( project != null && lGeneration == _lCacheGeneration )
+        {
+            ProjectCacheService cacheService = ProjectCacheService.getInstance( );
+            cacheService.putInCache( ProjectCacheService.getKey( project.getId( ), projection ), project );
+
+            if ( projection == ProjectProjection.FULL )
+            {
+                // the full project replaces the partial one
+                cacheService.removeKey( ProjectCacheService.getKey( project.getId( ), ProjectProjection.SUMMARY ) );
+            }
+        }
+    }
+
+    /**
+     * Remove a project from the cache, whatever the projection it was read with
+     * @param nKey the project primary key
+     */
+    private static synchronized void removeFromCache( int nKey )
+    {
+        _lCacheGeneration++;
+        ProjectCacheService cacheService = ProjectCacheService.getInstance( );
+        cacheService.removeKey( ProjectCacheService.getKey( nKey ) );
+        cacheService.removeKey( ProjectCacheService.getKey( nKey, ProjectProjection.SUMMARY ) );
+    }
+}
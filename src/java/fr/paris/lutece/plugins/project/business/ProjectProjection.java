@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.business;
+
+/**
+ * Named sets of columns read from project_table, so that a query only fetches the columns its caller displays
+ */
+public enum ProjectProjection
+{
+    /** id and label, for the reference lists */
+    ID_LABEL( "id_project, deux_sh" ),
+    /** every column except the long text quatre_lg, for the list pages */
+    SUMMARY( "id_project, un_entier, deux_sh, trois_md, cinq_mail, six_url, sept_date, huit_b, neuf_file, version" ),
+    /** every column */
+    FULL( "id_project, un_entier, deux_sh, trois_md, quatre_lg, cinq_mail, six_url, sept_date, huit_b, neuf_file, version" );
+
+    private final String _strColumns;
+
+    /**
+     * Constructor
+     * @param strColumns the columns of the projection, in the order they are read
+     */
+    ProjectProjection( String strColumns )
+    {
+        _strColumns = strColumns;
+    }
+
+    /**
+     * Returns the columns of the projection, in the order they are read
+     * @return the columns separated by commas
+     */
+    public String getColumns( )
+    {
+        return _strColumns;
+    }
+}
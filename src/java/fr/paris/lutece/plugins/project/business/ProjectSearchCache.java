@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.business;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Cache of search results (lists of ids, counts) by normalized search criteria and sort.
+ * The results are kept as int arrays within a budget of ids, the least recently used are evicted first.
+ * Every write on project_table through this webapp starts a new generation, which drops all the results,
+ * including the ones computed by queries started before the write. The writes of the other webapps sharing
+ * the database are not seen : the results expire after a time to live, which bounds how long they may be stale.
+ */
+final class ProjectSearchCache
+{
+    // approximate cost of an entry besides its ids, in ints
+    private static final int ENTRY_OVERHEAD = 32;
+    // a single result may use at most this part of the budget
+    private static final int MAX_RESULT_RATIO = 4;
+    private static final String SORT_DESC = "DESC";
+    private static final String SORT_ASC = "ASC";
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private final long _lMaxIds;
+    private final long _lTimeToLiveNanos;
+    private final Map<String, Entry> _mapResults = new LinkedHashMap<>( 16, 0.75f, true );
+    private long _lUsedIds;
+    private long _lGeneration;
+
+    /**
+     * Constructor
+     * @param lMaxIds the budget of the cache, in number of ids, 0 to disable the cache
+     * @param lTimeToLiveMillis the time a result is kept, in milliseconds
+     */
+    ProjectSearchCache( long lMaxIds, long lTimeToLiveMillis )
+    {
+        _lMaxIds = lMaxIds;
+        _lTimeToLiveNanos = TimeUnit.MILLISECONDS.toNanos( lTimeToLiveMillis );
+    }
+
+    /**
+     * Returns the current generation, to read before running the query whose result will be put in the cache
+     * @return the generation
+     */
+    synchronized long currentGeneration( )
+    {
+        return _lGeneration;
+    }
+
+    /**
+     * Get a result
+     * @param strKey the key built by {@link #buildKey}
+     * @return the result, or null
+     */
+    synchronized int [ ] get( String strKey )
+    {
+        Entry entry = _mapResults.get( strKey );
+
+        if ( entry == null )
+        {
+            return null;
+        }
+        if ( System.nanoTime( ) - entry._lExpiryNanos >= 0 )
+        {
+            _mapResults.remove( strKey );
+            _lUsedIds -= cost( strKey, entry._result );
+            return null;
+        }
+
+        return entry._result;
+    }
+
+    /**
+     * Put a result, unless the table has been written since the query started or the result is too large
+     * @param strKey the key built by {@link #buildKey}
+     * @param lGeneration the generation read before running the query
+     * @param result the result
+     */
+    synchronized void put( String strKey, long lGeneration, int [ ] result )
+    {
+        long lCost = cost( strKey, result );
+
+        if ( lGeneration != _lGeneration || lCost > _lMaxIds / MAX_RESULT_RATIO )
+        {
+            return;
+        }
+
+        Entry previous = _mapResults.put( strKey, new Entry( result, System.nanoTime( ) + _lTimeToLiveNanos ) );
+        if ( previous != null )
+        {
+            _lUsedIds -= cost( strKey, previous._result );
+        }
+        _lUsedIds += lCost;
+
+        Iterator<Map.Entry<String, Entry>> iterator = _mapResults.entrySet( ).iterator( );
+        while ( _lUsedIds > _lMaxIds && iterator.hasNext( ) )
+        {
+            Map.Entry<String, Entry> eldest = iterator.next( );
+            _lUsedIds -= cost( eldest.getKey( ), eldest.getValue( )._result );
+            iterator.remove( );
+        }
+    }
+
+    /**
+     * Start a new generation : drop all the results
+     */
+    synchronized void invalidate( )
+    {
+        _lGeneration++;
+        _mapResults.clear( );
+        _lUsedIds = 0;
+    }
+
+    /**
+     * Build the key of a result. Blank criteria are ignored, the criteria are sorted by name
+     * and the sort mode is only kept with a sort column, so that equivalent searches share their result.
+     * @param strKind the kind of result
+     * @param mapFilterCriteria contains search bar names/values inputs
+     * @param strColumnToOrder contains the column name to use for orderBy statement (may be null)
+     * @param strSortMode contains the sortMode : ASC or DESC (may be null)
+     * @param params the other parameters of the query
+     * @return the key
+     */
+    static String buildKey( String strKind, Map<String, String> mapFilterCriteria, String strColumnToOrder, String strSortMode, int... params )
+    {
+        StringBuilder sbKey = new StringBuilder( strKind );
+
+        if ( mapFilterCriteria != null )
+        {
+            for ( Map.Entry<String, String> criteria : new TreeMap<>( mapFilterCriteria ).entrySet( ) )
+            {
+                if ( StringUtils.isNotBlank( criteria.getValue( ) ) )
+                {
+                    sbKey.append( KEY_SEPARATOR ).append( criteria.getKey( ) ).append( '=' ).append( criteria.getValue( ) );
+                }
+            }
+        }
+
+        sbKey.append( KEY_SEPARATOR );
+        if ( StringUtils.isNotBlank( strColumnToOrder ) )
+        {
+            sbKey.append( strColumnToOrder ).append( ' ' ).append( SORT_DESC.equalsIgnoreCase( StringUtils.trim( strSortMode ) ) ? SORT_DESC : SORT_ASC );
+        }
+
+        for ( int nParam : params )
+        {
+            sbKey.append( KEY_SEPARATOR ).append( nParam );
+        }
+
+        return sbKey.toString( );
+    }
+
+    /**
+     * Returns the cost of an entry
+     * @param strKey the key
+     * @param result the result
+     * @return the cost, in ints
+     */
+    private static long cost( String strKey, int [ ] result )
+    {
+        return (long) result.length + strKey.length( ) / 2 + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * A cached result with its expiry
+     */
+    private static final class Entry
+    {
+        private final int [ ] _result;
+        private final long _lExpiryNanos;
+
+        /**
+         * Constructor
+         * @param result the result
+         * @param lExpiryNanos the value of System.nanoTime( ) from which the result is expired
+         */
+        Entry( int [ ] result, long lExpiryNanos )
+        {
+            _result = result;
+            _lExpiryNanos = lExpiryNanos;
+        }
+    }
+}
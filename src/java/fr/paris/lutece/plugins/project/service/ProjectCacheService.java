@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.service;
+
+import fr.paris.lutece.plugins.project.business.ProjectProjection;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+
+/**
+ * Cache of the projects by id and projection, filled and invalidated by ProjectHome.
+ * It is sized, expired and enabled like the other Lutece caches, from the cache management page.
+ */
+public final class ProjectCacheService extends AbstractCacheableService
+{
+    private static final String CACHE_NAME = "ProjectCacheService";
+    private static final char KEY_SEPARATOR = ':';
+
+    private static ProjectCacheService _singleton = new ProjectCacheService( );
+
+    /**
+     * Private constructor
+     */
+    private ProjectCacheService( )
+    {
+        initCache( );
+    }
+
+    /**
+     * Returns the unique instance
+     * @return the instance
+     */
+    public static ProjectCacheService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return CACHE_NAME;
+    }
+
+    /**
+     * Returns the cache key of a project read with all its columns
+     * @param nIdProject the id of the project
+     * @return the key
+     */
+    public static String getKey( int nIdProject )
+    {
+        return Integer.toString( nIdProject );
+    }
+
+    /**
+     * Returns the cache key of a project read with the columns of a projection
+     * @param nIdProject the id of the project
+     * @param projection the projection
+     * @return the key
+     */
+    public static String getKey( int nIdProject, ProjectProjection projection )
+    {
+        return ( projection == ProjectProjection.FULL ) ? getKey( nIdProject ) : projection.name( ) + KEY_SEPARATOR + nIdProject;
+    }
+}
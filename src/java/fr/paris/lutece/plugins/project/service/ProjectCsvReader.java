@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.service;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming CSV reader (RFC 4180 : quoted fields, doubled quotes, line breaks inside quotes).
+ * Records are read one at a time, so the size of the file does not matter.
+ */
+public class ProjectCsvReader implements Closeable
+{
+    private static final char QUOTE = '"';
+    private static final char CR = '\r';
+    private static final char LF = '\n';
+    private static final int EOF = -1;
+
+    private final Reader _reader;
+    private final char _cSeparator;
+    private int _nPushedBack = EOF;
+    private int _nLineNumber;
+
+    /**
+     * Constructor
+     * @param reader the reader, should be buffered
+     * @param cSeparator the separator of the fields
+     */
+    public ProjectCsvReader( Reader reader, char cSeparator )
+    {
+        _reader = reader;
+        _cSeparator = cSeparator;
+    }
+
+    /**
+     * Returns the line number of the last record read, starting at 1
+     * @return the line number
+     */
+    public int getLineNumber( )
+    {
+        return _nLineNumber;
+    }
+
+    /**
+     * Read the next record
+     * @return the fields of the record, or null at the end of the stream
+     * @throws IOException if the stream cannot be read
+     */
+    public List<String> readRecord( ) throws IOException
+    {
+        int c = read( );
+
+        if ( c == EOF )
+        {
+            return null;
+        }
+
+        _nLineNumber++;
+        List<String> listFields = new ArrayList<>( );
+        StringBuilder sbField = new StringBuilder( );
+        boolean bQuoted = false;
+
+        while ( true )
+        {
+            if ( bQuoted )
+            {
+                if ( c == EOF )
+                {
+                    throw new IOException( "Unterminated quoted field at line " + _nLineNumber );
+                }
+                if ( c == QUOTE )
+                {
+                    int cNext = read( );
+                    if ( cNext == QUOTE )
+                    {
+                        sbField.append( QUOTE );
+                    }
+                    else
+                    {
+                        bQuoted = false;
+                        _nPushedBack = cNext;
+                    }
+                }
+                else
+                {
+                    if ( c == LF )
+                    {
+                        _nLineNumber++;
+                    }
+                    sbField.append( (char) c );
+                }
+            }
+            else if ( c == QUOTE && sbField.length( ) == 0 )
+            {
+                bQuoted = true;
+            }
+            else if ( c == _cSeparator )
+            {
+                listFields.add( sbField.toString( ) );
+                sbField.setLength( 0 );
+            }
+            else if ( c == CR || c == LF || c == EOF )
+            {
+                if ( c == CR )
+                {
+                    int cNext = read( );
+                    if ( cNext != LF )
+                    {
+                        _nPushedBack = cNext;
+                    }
+                }
+                listFields.add( sbField.toString( ) );
+                return listFields;
+            }
+            else
+            {
+                sbField.append( (char) c );
+            }
+
+            c = read( );
+        }
+    }
+
+    /**
+     * Read one character, the pushed back one first
+     * @return the character or EOF
+     * @throws IOException if the stream cannot be read
+     */
+    private int read( ) throws IOException
+    {
+        if ( _nPushedBack != EOF )
+        {
+            int c = _nPushedBack;
+            _nPushedBack = EOF;
+            return c;
+        }
+        return _reader.read( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close( ) throws IOException
+    {
+        _reader.close( );
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import fr.paris.lutece.plugins.project.business.Project;
+import fr.paris.lutece.plugins.project.business.ProjectHome;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Export of the projects fitting with search criteria, as CSV or NDJSON (one JSON object per line).
+ * The rows are written to the stream as they are read from the database, so the memory used does not depend on the number of rows.
+ * The CSV columns are the ones read by the import.
+ */
+public final class ProjectExportService
+{
+    /** CSV format */
+    public static final String FORMAT_CSV = "csv";
+    /** NDJSON format */
+    public static final String FORMAT_NDJSON = "ndjson";
+
+    private static final String PROPERTY_SEPARATOR = "project.import.csv.separator";
+    private static final String DEFAULT_SEPARATOR = ";";
+
+    private static final String COLUMN_ID = "id_project";
+    private static final String COLUMN_NEUF_FILE = "neuf_file";
+    private static final String [ ] COLUMNS = {
+        ProjectImportService.COLUMN_UN_ENTIER, ProjectImportService.COLUMN_DEUX_SH, ProjectImportService.COLUMN_TROIS_MD,
+        ProjectImportService.COLUMN_QUATRE_LG, ProjectImportService.COLUMN_CINQ_MAIL, ProjectImportService.COLUMN_SIX_URL,
+        ProjectImportService.COLUMN_SEPT_DATE, ProjectImportService.COLUMN_HUIT_B, COLUMN_NEUF_FILE
+    };
+    private static final String LINE_SEPARATOR = "\r\n";
+    private static final char QUOTE = '"';
+
+    private static ProjectExportService _singleton = new ProjectExportService( );
+
+    /**
+     * Private constructor
+     */
+    private ProjectExportService( )
+    {
+    }
+
+    /**
+     * Returns the unique instance
+     * @return the instance
+     */
+    public static ProjectExportService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * Write the projects fitting with the search criteria to the stream
+     * @param mapFilterCriteria contains search bar names/values inputs
+     * @param strColumnToOrder contains the column name to use for orderBy statement (may be null)
+     * @param strSortMode contains the sortMode : ASC or DESC (may be null)
+     * @param strFormat the format, {@link #FORMAT_CSV} or {@link #FORMAT_NDJSON}
+     * @param bGzip true to compress the output with gzip
+     * @param out the stream, not closed by this method
+     * @throws IOException if the stream cannot be written
+     */
+    public void export( Map<String, String> mapFilterCriteria, String strColumnToOrder, String strSortMode, String strFormat, boolean bGzip,
+            OutputStream out ) throws IOException
+    {
+        GZIPOutputStream gzipOut = bGzip ? new GZIPOutputStream( out ) : null;
+        Writer writer = new BufferedWriter( new OutputStreamWriter( bGzip ? gzipOut : out, StandardCharsets.UTF_8 ) );
+        boolean bNdjson = FORMAT_NDJSON.equals( strFormat );
+        char cSeparator = AppPropertiesService.getProperty( PROPERTY_SEPARATOR, DEFAULT_SEPARATOR ).charAt( 0 );
+
+        if ( !bNdjson )
+        {
+            writeCsvHeader( writer, cSeparator );
+        }
+
+        try
+        {
+            ProjectHome.forEachProject( mapFilterCriteria, strColumnToOrder, strSortMode, project -> {
+                try
+                {
+                    if ( bNdjson )
+                    {
+                        writeJsonLine( writer, project );
+                    }
+                    else
+                    {
+                        writeCsvLine( writer, project, cSeparator );
+                    }
+                }
+                catch( IOException e )
+                {
+                    throw new UncheckedIOException( e );
+                }
+            } );
+        }
+        catch( UncheckedIOException e )
+        {
+            throw e.getCause( );
+        }
+
+        writer.flush( );
+        if ( gzipOut != null )
+        {
+            gzipOut.finish( );
+        }
+    }
+
+    /**
+     * Write the names of the columns
+     * @param writer the writer
+     * @param cSeparator the separator
+     * @throws IOException if the writer fails
+     */
+    private static void writeCsvHeader( Writer writer, char cSeparator ) throws IOException
+    {
+        writer.write( String.join( String.valueOf( cSeparator ), COLUMNS ) );
+        writer.write( LINE_SEPARATOR );
+    }
+
+    /**
+     * Write a project as a CSV record
+     * @param writer the writer
+     * @param project the project
+     * @param cSeparator the separator
+     * @throws IOException if the writer fails
+     */
+    private static void writeCsvLine( Writer writer, Project project, char cSeparator ) throws IOException
+    {
+        Object [ ] values = getValues( project );
+
+        for ( int i = 0; i < values.length; i++ )
+        {
+            if ( i > 0 )
+            {
+                writer.write( cSeparator );
+            }
+            if ( values [i] != null )
+            {
+                writeCsvField( writer, String.valueOf( values [i] ), cSeparator );
+            }
+        }
+        writer.write( LINE_SEPARATOR );
+    }
+
+    /**
+     * Write a CSV field, quoted when it contains a separator, a quote or a line break
+     * @param writer the writer
+     * @param strValue the value
+     * @param cSeparator the separator
+     * @throws IOException if the writer fails
+     */
+    private static void writeCsvField( Writer writer, String strValue, char cSeparator ) throws IOException
+    {
+        if ( strValue.indexOf( cSeparator ) < 0 && strValue.indexOf( QUOTE ) < 0 && strValue.indexOf( '\n' ) < 0 && strValue.indexOf( '\r' ) < 0 )
+        {
+            writer.write( strValue );
+            return;
+        }
+
+        writer.write( QUOTE );
+        for ( int i = 0; i < strValue.length( ); i++ )
+        {
+            char c = strValue.charAt( i );
+            if ( c == QUOTE )
+            {
+                writer.write( QUOTE );
+            }
+            writer.write( c );
+        }
+        writer.write( QUOTE );
+    }
+
+    /**
+     * Write a project as a JSON object on one line
+     * @param writer the writer
+     * @param project the project
+     * @throws IOException if the writer fails
+     */
+    private static void writeJsonLine( Writer writer, Project project ) throws IOException
+    {
+        Object [ ] values = getValues( project );
+
+        writer.write( "{\"" + COLUMN_ID + "\":" + project.getId( ) );
+        for ( int i = 0; i < values.length; i++ )
+        {
+            writer.write( ",\"" );
+            writer.write( COLUMNS [i] );
+            writer.write( "\":" );
+            Object value = values [i];
+            if ( value == null )
+            {
+                writer.write( "null" );
+            }
+            else if ( value instanceof Number || value instanceof Boolean )
+            {
+                writer.write( value.toString( ) );
+            }
+            else
+            {
+                writeJsonString( writer, value.toString( ) );
+            }
+        }
+        writer.write( "}\n" );
+    }
+
+    /**
+     * Write a JSON string, with its escaped characters
+     * @param writer the writer
+     * @param strValue the value
+     * @throws IOException if the writer fails
+     */
+    private static void writeJsonString( Writer writer, String strValue ) throws IOException
+    {
+        writer.write( QUOTE );
+        for ( int i = 0; i < strValue.length( ); i++ )
+        {
+            char c = strValue.charAt( i );
+            switch( c )
+            {
+                case '"':
+                    writer.write( "\\\"" );
+                    break;
+                case '\\':
+                    writer.write( "\\\\" );
+                    break;
+                case '\n':
+                    writer.write( "\\n" );
+                    break;
+                case '\r':
+                    writer.write( "\\r" );
+                    break;
+                case '\t':
+                    writer.write( "\\t" );
+                    break;
+                default:
+                    if ( c < 0x20 )
+                    {
+                        writer.write( String.format( "\\u%04x", (int) c ) );
+                    }
+                    else
+                    {
+                        writer.write( c );
+                    }
+            }
+        }
+        writer.write( QUOTE );
+    }
+
+    /**
+     * Returns the values of a project in the order of the columns
+     * @param project the project
+     * @return the values
+     */
+    private static Object [ ] getValues( Project project )
+    {
+        return new Object [ ] {
+            project.getUnEntier( ), project.getDeuxSh( ), project.getTroisMd( ), project.getQuatreLg( ), project.getCinqMail( ), project.getSixUrl( ),
+            project.getSeptDate( ), project.getHuitB( ), ( project.getNeufFile( ) != null ) ? project.getNeufFile( ).getFileKey( ) : null
+        };
+    }
+}
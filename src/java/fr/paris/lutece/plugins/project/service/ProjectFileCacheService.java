@@ -0,0 +1,350 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.plugins.project.business.Project;
+import fr.paris.lutece.plugins.project.business.ProjectHome;
+import fr.paris.lutece.portal.business.file.File;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.service.file.IFileStoreServiceProvider;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+
+/**
+ * Resolution of the metadata and download url of the neuf_file of the projects, for a whole page at once.
+ * The keys are deduplicated, the metadata are cached by file key and the keys missing from the cache
+ * are read from the file store in parallel. The urls are not cached : they may be signed with an expiry.
+ * A key being read is not read again by the next pages, which wait for the same reading, and the readings waiting
+ * for a thread are bounded : beyond, the files are linked without their title instead of piling up on a slow file store.
+ */
+public final class ProjectFileCacheService extends AbstractCacheableService
+{
+    private static final String CACHE_NAME = "ProjectFileCacheService";
+    private static final String PROPERTY_THREADS = "project.fileMetadata.threads";
+    private static final String PROPERTY_TIMEOUT = "project.fileMetadata.timeout";
+    private static final String PROPERTY_QUEUE_SIZE = "project.fileMetadata.queueSize";
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEFAULT_TIMEOUT = 2000;
+    private static final int DEFAULT_QUEUE_SIZE = 100;
+
+    private static ProjectFileCacheService _singleton = new ProjectFileCacheService( );
+
+    private final ExecutorService _executor;
+    private final long _lTimeoutNanos;
+    private final ConcurrentMap<String, CompletableFuture<File>> _mapPendingReads = new ConcurrentHashMap<>( );
+
+    /**
+     * Private constructor
+     */
+    private ProjectFileCacheService( )
+    {
+        initCache( );
+        int nThreads = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_THREADS, DEFAULT_THREADS ) );
+        _executor = new ThreadPoolExecutor( nThreads, nThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>( Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_QUEUE_SIZE, DEFAULT_QUEUE_SIZE ) ) ), runnable -> {
+                    Thread thread = new Thread( runnable, CACHE_NAME );
+                    thread.setDaemon( true );
+                    return thread;
+                } );
+        _lTimeoutNanos = TimeUnit.MILLISECONDS.toNanos( Math.max( 0, AppPropertiesService.getPropertyInt( PROPERTY_TIMEOUT, DEFAULT_TIMEOUT ) ) );
+    }
+
+    /**
+     * Returns the unique instance
+     * @return the instance
+     */
+    public static ProjectFileCacheService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return CACHE_NAME;
+    }
+
+    /**
+     * Get the metadata of files, with their download url, waiting for the file store until the configured timeout
+     * @param collectionFileKeys the keys of the files, blank and duplicate keys are ignored
+     * @param bBackOffice true for the back office download url, false for the front office one
+     * @return the files by key, without the keys unknown to the file store or whose reading failed
+     */
+    public Map<String, File> getFiles( Collection<String> collectionFileKeys, boolean bBackOffice )
+    {
+        return getFiles( collectionFileKeys, bBackOffice, ( _lTimeoutNanos > 0 ) ? System.nanoTime( ) + _lTimeoutNanos : 0 );
+    }
+
+    /**
+     * Get the metadata of files, with their download url.
+     * The files whose metadata are not read at the deadline only get their key and url : the page links them without
+     * a title instead of waiting for a slow file store, and their metadata are cached once read for the next pages.
+     * @param collectionFileKeys the keys of the files, blank and duplicate keys are ignored
+     * @param bBackOffice true for the back office download url, false for the front office one
+     * @param lDeadlineNanos the deadline, as a {@link System#nanoTime()} value, 0 to wait for all the files
+     * @return the files by key, without the keys unknown to the file store or whose reading failed
+     */
+    public Map<String, File> getFiles( Collection<String> collectionFileKeys, boolean bBackOffice, long lDeadlineNanos )
+    {
+        IFileStoreServiceProvider fileStoreService = ProjectHome.getFileStoreServiceProvider( );
+        Map<String, File> mapFiles = new HashMap<>( );
+        Map<String, CompletableFuture<File>> mapMissingFiles = new HashMap<>( );
+        Set<String> setFileKeys = new LinkedHashSet<>( );
+
+        for ( String strFileKey : collectionFileKeys )
+        {
+            if ( StringUtils.isNotBlank( strFileKey ) )
+            {
+                setFileKeys.add( strFileKey );
+            }
+        }
+
+        for ( String strFileKey : setFileKeys )
+        {
+            File file = (File) getFromCache( strFileKey );
+            if ( file != null )
+            {
+                mapFiles.put( strFileKey, file );
+            }
+            else
+            {
+                mapMissingFiles.put( strFileKey, getPendingRead( fileStoreService, strFileKey ) );
+            }
+        }
+
+        int nTimedOut = 0;
+        for ( Map.Entry<String, CompletableFuture<File>> missingFile : mapMissingFiles.entrySet( ) )
+        {
+            File file = waitForFile( missingFile.getValue( ), lDeadlineNanos );
+            if ( file == null && ( !missingFile.getValue( ).isDone( ) || missingFile.getValue( ).isCompletedExceptionally( ) ) )
+            {
+                nTimedOut++;
+                file = new File( );
+            }
+            if ( file != null )
+            {
+                mapFiles.put( missingFile.getKey( ), file );
+            }
+        }
+        if ( nTimedOut > 0 )
+        {
+            AppLogService.info( nTimedOut + " file metadata not read before the deadline or too many readings pending, the files are linked without title" );
+        }
+
+        // the cached files are shared : each caller gets its own copies
+        Map<String, File> mapResult = new HashMap<>( );
+        for ( Map.Entry<String, File> entry : mapFiles.entrySet( ) )
+        {
+            File file = copy( entry.getValue( ) );
+            file.setFileKey( entry.getKey( ) );
+            file.setUrl( bBackOffice ? fileStoreService.getFileDownloadUrlBO( entry.getKey( ) ) : fileStoreService.getFileDownloadUrlFO( entry.getKey( ) ) );
+            mapResult.put( entry.getKey( ), file );
+        }
+
+        return mapResult;
+    }
+
+    /**
+     * Replace the neuf_file of projects, which only hold the key of their file, by the metadata of the file with its download url
+     * @param collectionProjects the projects
+     * @param bBackOffice true for the back office download url, false for the front office one
+     */
+    public void setNeufFiles( Collection<Project> collectionProjects, boolean bBackOffice )
+    {
+        List<String> listFileKeys = new ArrayList<>( collectionProjects.size( ) );
+        for ( Project project : collectionProjects )
+        {
+            if ( project.getNeufFile( ) != null )
+            {
+                listFileKeys.add( project.getNeufFile( ).getFileKey( ) );
+            }
+        }
+
+        Map<String, File> mapFiles = getFiles( listFileKeys, bBackOffice );
+
+        for ( Project project : collectionProjects )
+        {
+            File file = ( project.getNeufFile( ) != null ) ? mapFiles.get( project.getNeufFile( ).getFileKey( ) ) : null;
+            if ( file != null )
+            {
+                project.setNeufFile( file );
+            }
+        }
+    }
+
+    /**
+     * Remove a file from the cache, once it has been replaced or deleted
+     * @param strFileKey the key of the file, may be blank
+     */
+    public void invalidate( String strFileKey )
+    {
+        if ( StringUtils.isNotBlank( strFileKey ) )
+        {
+            removeKey( strFileKey );
+        }
+    }
+
+    /**
+     * Get the reading of a file in progress, or start it
+     * @param fileStoreService the file store
+     * @param strFileKey the key of the file
+     * @return the reading, completed exceptionally if too many readings are pending
+     */
+    private CompletableFuture<File> getPendingRead( IFileStoreServiceProvider fileStoreService, String strFileKey )
+    {
+        CompletableFuture<File> newRead = new CompletableFuture<>( );
+        CompletableFuture<File> pendingRead = _mapPendingReads.putIfAbsent( strFileKey, newRead );
+
+        if ( pendingRead != null )
+        {
+            return pendingRead;
+        }
+
+        try
+        {
+            // cached by the reading thread, so that a reading finished after the deadline serves the next pages
+            _executor.execute( ( ) -> {
+                File fileRead = null;
+                try
+                {
+                    fileRead = readFileMetaData( fileStoreService, strFileKey );
+                    if ( fileRead != null )
+                    {
+                        putInCache( strFileKey, fileRead );
+                    }
+                }
+                finally
+                {
+                    _mapPendingReads.remove( strFileKey, newRead );
+                    newRead.complete( fileRead );
+                }
+            } );
+        }
+        catch( RejectedExecutionException e )
+        {
+            _mapPendingReads.remove( strFileKey, newRead );
+            newRead.completeExceptionally( e );
+        }
+
+        return newRead;
+    }
+
+    /**
+     * Wait for the reading of a file until a deadline
+     * @param futureFile the reading
+     * @param lDeadlineNanos the deadline, 0 to wait until the end of the reading
+     * @return the file, or null if it is unknown, its reading failed or is not finished at the deadline
+     */
+    private static File waitForFile( CompletableFuture<File> futureFile, long lDeadlineNanos )
+    {
+        try
+        {
+            if ( lDeadlineNanos == 0 )
+            {
+                return futureFile.get( );
+            }
+
+            return futureFile.get( Math.max( 0, lDeadlineNanos - System.nanoTime( ) ), TimeUnit.NANOSECONDS );
+        }
+        catch( InterruptedException e )
+        {
+            Thread.currentThread( ).interrupt( );
+            return null;
+        }
+        catch( ExecutionException | TimeoutException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Read the metadata of a file from the file store
+     * @param fileStoreService the file store
+     * @param strFileKey the key of the file
+     * @return the file, or null
+     */
+    private static File readFileMetaData( IFileStoreServiceProvider fileStoreService, String strFileKey )
+    {
+        try
+        {
+            File file = fileStoreService.getFileMetaData( strFileKey );
+            return ( file != null ) ? copy( file ) : null;
+        }
+        catch( Exception e )
+        {
+            AppLogService.error( "Unable to read the metadata of the file " + strFileKey, e );
+            return null;
+        }
+    }
+
+    /**
+     * Copy the metadata of a file, without its content nor its url
+     * @param file the file
+     * @return the copy
+     */
+    private static File copy( File file )
+    {
+        File copy = new File( );
+        copy.setFileKey( file.getFileKey( ) );
+        copy.setTitle( file.getTitle( ) );
+        copy.setSize( file.getSize( ) );
+        copy.setMimeType( file.getMimeType( ) );
+        copy.setOrigin( file.getOrigin( ) );
+
+        return copy;
+    }
+}
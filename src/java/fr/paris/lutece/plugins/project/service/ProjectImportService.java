@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.fileupload.FileItem;
+import org.apache.commons.lang3.StringUtils;
+
+import fr.paris.lutece.plugins.project.business.Project;
+import fr.paris.lutece.plugins.project.business.ProjectHome;
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.util.beanvalidation.BeanValidationUtil;
+import fr.paris.lutece.util.beanvalidation.ValidationError;
+
+/**
+ * Import of projects from a CSV file, as a pipeline : the file is read as a stream, the rows are validated
+ * by a pool of workers with the constraints of the Project class and the valid rows are inserted by batches.
+ * Bounded queues between the stages slow the reading down to the speed of the validation and of the database.
+ */
+public final class ProjectImportService
+{
+    // Properties
+    private static final String PROPERTY_SEPARATOR = "project.import.csv.separator";
+    private static final String PROPERTY_THREADS = "project.import.threads";
+    private static final String PROPERTY_QUEUE_SIZE = "project.import.queueSize";
+    private static final String PROPERTY_BATCH_SIZE = "project.batch.size";
+    private static final String PROPERTY_MAX_REPORTED_ERRORS = "project.import.maxReportedErrors";
+    private static final String DEFAULT_SEPARATOR = ";";
+    private static final int DEFAULT_THREADS = 4;
+    private static final int DEFAULT_QUEUE_SIZE = 1000;
+    private static final int DEFAULT_BATCH_SIZE = 500;
+    private static final int DEFAULT_MAX_REPORTED_ERRORS = 1000;
+
+    // Columns of the file, named as the columns of project_table, shared with the export
+    static final String COLUMN_UN_ENTIER = "un_entier";
+    static final String COLUMN_DEUX_SH = "deux_sh";
+    static final String COLUMN_TROIS_MD = "trois_md";
+    static final String COLUMN_QUATRE_LG = "quatre_lg";
+    static final String COLUMN_CINQ_MAIL = "cinq_mail";
+    static final String COLUMN_SIX_URL = "six_url";
+    static final String COLUMN_SEPT_DATE = "sept_date";
+    static final String COLUMN_HUIT_B = "huit_b";
+    private static final String BOOLEAN_TRUE = "1";
+    // byte order mark written at the start of the UTF-8 files by the spreadsheets
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+    // time a validation thread waits for room in the insert queue before checking that the insert stage is still running
+    private static final long HAND_OVER_TIMEOUT = 1000;
+
+    private static final String VALIDATION_ATTRIBUTES_PREFIX = "project.model.entity.project.attribute.";
+
+    // marks the end of the rows in the insert queue
+    private static final ImportRow END_OF_IMPORT = new ImportRow( null, 0 );
+
+    private static ProjectImportService _singleton = new ProjectImportService( );
+
+    // imports run one at a time in the background, the thread does not keep the JVM alive
+    private final ExecutorService _importExecutor = Executors.newSingleThreadExecutor( runnable -> {
+        Thread thread = new Thread( runnable, "project-import" );
+        thread.setDaemon( true );
+        return thread;
+    } );
+
+    /**
+     * Private constructor
+     */
+    private ProjectImportService( )
+    {
+    }
+
+    /**
+     * Returns the unique instance
+     * @return the instance
+     */
+    public static ProjectImportService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * Start the import of a CSV file in the background. The first line of the file names the columns.
+     * @param fileItem the uploaded file
+     * @param locale the locale of the validation messages
+     * @return the status of the import, updated while it runs
+     */
+    public ProjectImportStatus startImport( FileItem fileItem, Locale locale )
+    {
+        ProjectImportStatus status = new ProjectImportStatus( fileItem.getName( ),
+                AppPropertiesService.getPropertyInt( PROPERTY_MAX_REPORTED_ERRORS, DEFAULT_MAX_REPORTED_ERRORS ) );
+
+        _importExecutor.execute( ( ) -> {
+            try
+            {
+                runImport( fileItem, locale, status );
+            }
+            catch( Exception e )
+            {
+                AppLogService.error( "Project import failed : " + fileItem.getName( ), e );
+                status.setFatalError( e.getMessage( ) );
+            }
+            finally
+            {
+                status.setFinished( );
+                fileItem.delete( );
+            }
+        } );
+
+        return status;
+    }
+
+    /**
+     * Run the pipeline : read, validate, insert
+     * @param fileItem the uploaded file
+     * @param locale the locale of the validation messages
+     * @param status the status to update
+     * @throws IOException if the file cannot be read
+     * @throws InterruptedException if the import is interrupted
+     */
+    private void runImport( FileItem fileItem, Locale locale, ProjectImportStatus status ) throws IOException, InterruptedException
+    {
+        int nThreads = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_THREADS, DEFAULT_THREADS ) );
+        int nQueueSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_QUEUE_SIZE, DEFAULT_QUEUE_SIZE ) );
+        int nBatchSize = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_BATCH_SIZE, DEFAULT_BATCH_SIZE ) );
+        char cSeparator = AppPropertiesService.getProperty( PROPERTY_SEPARATOR, DEFAULT_SEPARATOR ).charAt( 0 );
+
+        // when the validation queue is full the reading thread validates the row itself, which slows the reading down
+        ThreadPoolExecutor validationPool = new ThreadPoolExecutor( nThreads, nThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>( nQueueSize ), new ThreadPoolExecutor.CallerRunsPolicy( ) );
+        // when the insert queue is full the validation threads wait for the database
+        BlockingQueue<ImportRow> insertQueue = new ArrayBlockingQueue<>( nQueueSize );
+        Thread insertThread = new Thread( ( ) -> insertRows( insertQueue, nBatchSize, status ), "project-import-insert" );
+        insertThread.setDaemon( true );
+        insertThread.start( );
+
+        try( ProjectCsvReader reader = new ProjectCsvReader( new BufferedReader( new InputStreamReader( fileItem.getInputStream( ), StandardCharsets.UTF_8 ) ), cSeparator ) )
+        {
+            List<String> listHeader = reader.readRecord( );
+            if ( listHeader == null )
+            {
+                return;
+            }
+            if ( !listHeader.isEmpty( ) )
+            {
+                listHeader.set( 0, StringUtils.removeStart( listHeader.get( 0 ), BYTE_ORDER_MARK ) );
+            }
+
+            List<String> listRecord;
+            while ( ( listRecord = reader.readRecord( ) ) != null )
+            {
+                Map<String, String> mapRow = toRow( listHeader, listRecord );
+                int nLine = reader.getLineNumber( );
+                status.addRead( );
+                validationPool.execute( ( ) -> validateRow( mapRow, nLine, locale, insertQueue, insertThread, status ) );
+            }
+        }
+        finally
+        {
+            validationPool.shutdown( );
+            try
+            {
+                validationPool.awaitTermination( Long.MAX_VALUE, TimeUnit.MILLISECONDS );
+                handOver( insertQueue, END_OF_IMPORT, insertThread );
+                insertThread.join( );
+            }
+            finally
+            {
+                // an interrupted import stops its stages instead of leaving them waiting for each other
+                validationPool.shutdownNow( );
+                insertThread.interrupt( );
+            }
+        }
+    }
+
+    /**
+     * Put a row in the insert queue, unless the insert stage has stopped
+     * @param insertQueue the queue of the insert stage
+     * @param row the row
+     * @param insertThread the thread of the insert stage
+     * @return true if the row has been queued, false if the insert stage has stopped
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    private static boolean handOver( BlockingQueue<ImportRow> insertQueue, ImportRow row, Thread insertThread ) throws InterruptedException
+    {
+        while ( !insertQueue.offer( row, HAND_OVER_TIMEOUT, TimeUnit.MILLISECONDS ) )
+        {
+            if ( !insertThread.isAlive( ) )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Map the fields of a record on the names of the header
+     * @param listHeader the header
+     * @param listRecord the record
+     * @return the row by column name
+     */
+    private static Map<String, String> toRow( List<String> listHeader, List<String> listRecord )
+    {
+        Map<String, String> mapRow = new HashMap<>( );
+
+        for ( int i = 0; i < listHeader.size( ) && i < listRecord.size( ); i++ )
+        {
+            mapRow.put( listHeader.get( i ).trim( ).toLowerCase( Locale.ROOT ), listRecord.get( i ) );
+        }
+
+        return mapRow;
+    }
+
+    /**
+     * Build and validate the project of a row, then hand it to the insert stage
+     * @param mapRow the row
+     * @param nLine the line of the row
+     * @param locale the locale of the validation messages
+     * @param insertQueue the queue of the insert stage
+     * @param insertThread the thread of the insert stage
+     * @param status the status to update
+     */
+    private static void validateRow( Map<String, String> mapRow, int nLine, Locale locale, BlockingQueue<ImportRow> insertQueue, Thread insertThread,
+            ProjectImportStatus status )
+    {
+        try
+        {
+            Project project = toProject( mapRow );
+            List<ValidationError> listErrors = BeanValidationUtil.validate( project, locale, VALIDATION_ATTRIBUTES_PREFIX );
+
+            if ( !listErrors.isEmpty( ) )
+            {
+                List<String> listMessages = new ArrayList<>( );
+                listErrors.forEach( error -> listMessages.add( error.getMessage( ) ) );
+                status.addRejected( nLine, String.join( ", ", listMessages ) );
+                return;
+            }
+
+            if ( !handOver( insertQueue, new ImportRow( project, nLine ), insertThread ) )
+            {
+                status.addRejected( nLine, "insert stopped" );
+            }
+        }
+        catch( IllegalArgumentException e )
+        {
+            status.addRejected( nLine, e.getMessage( ) );
+        }
+        catch( InterruptedException e )
+        {
+            status.addRejected( nLine, e.getMessage( ) );
+            Thread.currentThread( ).interrupt( );
+        }
+    }
+
+    /**
+     * Build a project from a row
+     * @param mapRow the row
+     * @return the project
+     * @throws IllegalArgumentException if a value cannot be parsed
+     */
+    private static Project toProject( Map<String, String> mapRow )
+    {
+        Project project = new Project( );
+
+        String strUnEntier = mapRow.get( COLUMN_UN_ENTIER );
+        try
+        {
+            project.setUnEntier( StringUtils.isBlank( strUnEntier ) ? 0 : Integer.parseInt( strUnEntier.trim( ) ) );
+        }
+        catch( NumberFormatException e )
+        {
+            throw new IllegalArgumentException( COLUMN_UN_ENTIER + " : invalid number " + strUnEntier, e );
+        }
+        project.setDeuxSh( mapRow.get( COLUMN_DEUX_SH ) );
+        project.setTroisMd( mapRow.get( COLUMN_TROIS_MD ) );
+        project.setQuatreLg( mapRow.get( COLUMN_QUATRE_LG ) );
+        project.setCinqMail( mapRow.get( COLUMN_CINQ_MAIL ) );
+        project.setSixUrl( mapRow.get( COLUMN_SIX_URL ) );
+
+        String strSeptDate = mapRow.get( COLUMN_SEPT_DATE );
+        try
+        {
+            project.setSeptDate( StringUtils.isBlank( strSeptDate ) ? null : Date.valueOf( strSeptDate.trim( ) ) );
+        }
+        catch( IllegalArgumentException e )
+        {
+            throw new IllegalArgumentException( COLUMN_SEPT_DATE + " : invalid date (yyyy-mm-dd) " + strSeptDate, e );
+        }
+
+        String strHuitB = StringUtils.trim( mapRow.get( COLUMN_HUIT_B ) );
+        project.setHuitB( BOOLEAN_TRUE.equals( strHuitB ) || Boolean.parseBoolean( strHuitB ) );
+
+        return project;
+    }
+
+    /**
+     * Insert stage : take the valid projects from the queue and insert them by batches until the end mark
+     * @param insertQueue the queue
+     * @param nBatchSize the size of the batches
+     * @param status the status to update
+     */
+    private static void insertRows( BlockingQueue<ImportRow> insertQueue, int nBatchSize, ProjectImportStatus status )
+    {
+        List<ImportRow> listBatch = new ArrayList<>( nBatchSize );
+        boolean bEnd = false;
+
+        while ( !bEnd )
+        {
+            try
+            {
+                listBatch.add( insertQueue.take( ) );
+                insertQueue.drainTo( listBatch, nBatchSize - 1 );
+            }
+            catch( InterruptedException e )
+            {
+                // the validation threads see that this thread has stopped and no longer wait for the queue
+                Thread.currentThread( ).interrupt( );
+                status.setFatalError( e.getMessage( ) );
+                return;
+            }
+
+            bEnd = listBatch.remove( END_OF_IMPORT );
+
+            if ( !listBatch.isEmpty( ) )
+            {
+                List<Project> listProjects = new ArrayList<>( listBatch.size( ) );
+                listBatch.forEach( row -> listProjects.add( row._project ) );
+                try
+                {
+                    ProjectHome.createAll( listProjects );
+                    status.addImported( listProjects.size( ) );
+                }
+                catch( Exception e )
+                {
+                    // the batch was rolled back : its rows are rejected and the import goes on
+                    AppLogService.error( "Project import : batch insert failed", e );
+                    listBatch.forEach( row -> status.addRejected( row._nLine, e.getMessage( ) ) );
+                }
+                listBatch.clear( );
+            }
+        }
+    }
+
+    /**
+     * A valid project with the line of the file it was read from, for the report of a failed insert
+     */
+    private static final class ImportRow
+    {
+        private final Project _project;
+        private final int _nLine;
+
+        /**
+         * Constructor
+         * @param project the project
+         * @param nLine the line of the row
+         */
+        ImportRow( Project project, int nLine )
+        {
+            _project = project;
+            _nLine = nLine;
+        }
+    }
+}
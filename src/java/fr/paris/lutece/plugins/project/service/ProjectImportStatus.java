@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.service;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Progress and error report of a CSV import, updated by the threads of the import and read by the admin view
+ */
+public class ProjectImportStatus implements Serializable
+{
+    private static final long serialVersionUID = 1L;
+
+    private final String _strFileName;
+    private final int _nMaxReportedErrors;
+    private final AtomicInteger _nRead = new AtomicInteger( );
+    private final AtomicInteger _nImported = new AtomicInteger( );
+    private final AtomicInteger _nRejected = new AtomicInteger( );
+    private final List<String> _listErrors = Collections.synchronizedList( new ArrayList<>( ) );
+    private volatile boolean _bFinished;
+    private volatile String _strFatalError;
+
+    /**
+     * Constructor
+     * @param strFileName the name of the imported file
+     * @param nMaxReportedErrors the maximum number of rejected rows described in the report
+     */
+    public ProjectImportStatus( String strFileName, int nMaxReportedErrors )
+    {
+        _strFileName = strFileName;
+        _nMaxReportedErrors = nMaxReportedErrors;
+    }
+
+    /**
+     * Returns the name of the imported file
+     * @return the file name
+     */
+    public String getFileName( )
+    {
+        return _strFileName;
+    }
+
+    /**
+     * Returns the number of rows read
+     * @return the number of rows read
+     */
+    public int getRead( )
+    {
+        return _nRead.get( );
+    }
+
+    /**
+     * Returns the number of rows inserted
+     * @return the number of rows inserted
+     */
+    public int getImported( )
+    {
+        return _nImported.get( );
+    }
+
+    /**
+     * Returns the number of rows rejected
+     * @return the number of rows rejected
+     */
+    public int getRejected( )
+    {
+        return _nRejected.get( );
+    }
+
+    /**
+     * Returns the description of the first rejected rows
+     * @return a copy of the list of errors
+     */
+    public List<String> getErrors( )
+    {
+        synchronized( _listErrors )
+        {
+            return new ArrayList<>( _listErrors );
+        }
+    }
+
+    /**
+     * Check if the import is finished
+     * @return true if the import is finished
+     */
+    public boolean isFinished( )
+    {
+        return _bFinished;
+    }
+
+    /**
+     * Returns the error which stopped the import
+     * @return the error, or null
+     */
+    public String getFatalError( )
+    {
+        return _strFatalError;
+    }
+
+    /**
+     * Count a row read
+     */
+    void addRead( )
+    {
+        _nRead.incrementAndGet( );
+    }
+
+    /**
+     * Count inserted rows
+     * @param nCount the number of rows
+     */
+    void addImported( int nCount )
+    {
+        _nImported.addAndGet( nCount );
+    }
+
+    /**
+     * Count a rejected row and report it while the report is not full
+     * @param nLine the line of the row in the file
+     * @param strMessage the reason of the rejection
+     */
+    void addRejected( int nLine, String strMessage )
+    {
+        _nRejected.incrementAndGet( );
+
+        synchronized( _listErrors )
+        {
+            if ( _listErrors.size( ) < _nMaxReportedErrors )
+            {
+                _listErrors.add( nLine + " : " + strMessage );
+            }
+        }
+    }
+
+    /**
+     * Mark the import as finished
+     */
+    void setFinished( )
+    {
+        _bFinished = true;
+    }
+
+    /**
+     * Set the error which stopped the import
+     * @param strFatalError the error
+     */
+    void setFatalError( String strFatalError )
+    {
+        _strFatalError = strFatalError;
+    }
+}
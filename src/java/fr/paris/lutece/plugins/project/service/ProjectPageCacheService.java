@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.service;
+
+import fr.paris.lutece.plugins.project.business.IProjectChangeListener;
+import fr.paris.lutece.plugins.project.business.ProjectHome;
+import fr.paris.lutece.portal.service.cache.AbstractCacheableService;
+import fr.paris.lutece.portal.web.xpages.XPage;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Cache of the rendered front office pages of the projects, by view, locale and page parameters.
+ * It listens to ProjectHome and is emptied on every write on the projects ; the pages rendered by requests started before a write
+ * are not put in the cache, and the date of the last write is the Last-Modified date of the cached pages.
+ * The validators only cover the content of the XPage : a change of the rest of the portal page (theme, menu, portlets)
+ * is not seen by a client revalidating its copy, so the ETag is weak and the pages are to be emptied from the
+ * cache management page after such a change.
+ */
+public final class ProjectPageCacheService extends AbstractCacheableService implements IProjectChangeListener
+{
+    private static final String CACHE_NAME = "ProjectPageCacheService";
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+    private static final int ETAG_BYTES = 16;
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final char KEY_SEPARATOR = '\u0000';
+
+    private static ProjectPageCacheService _singleton = new ProjectPageCacheService( );
+
+    static
+    {
+        ProjectHome.addChangeListener( _singleton );
+    }
+
+    private long _lGeneration;
+    private long _lLastModified = currentSecond( );
+
+    /**
+     * Private constructor
+     */
+    private ProjectPageCacheService( )
+    {
+        initCache( );
+    }
+
+    /**
+     * Returns the unique instance
+     * @return the instance
+     */
+    public static ProjectPageCacheService getInstance( )
+    {
+        return _singleton;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getName( )
+    {
+        return CACHE_NAME;
+    }
+
+    /**
+     * Returns the current generation, to read before rendering the page that will be put in the cache
+     * @return the generation
+     */
+    public synchronized long currentGeneration( )
+    {
+        return _lGeneration;
+    }
+
+    /**
+     * Get a rendered page
+     * @param strKey the key of the page
+     * @return the page, or null if it is not in the cache
+     */
+    public RenderedPage getPage( String strKey )
+    {
+        return (RenderedPage) getFromCache( strKey );
+    }
+
+    /**
+     * Put a rendered page in the cache, unless the projects have been modified since the given generation
+     * @param strKey the key of the page
+     * @param lGeneration the generation read before rendering the page
+     * @param xpage the page
+     * @return the rendered page, with its ETag and Last-Modified date
+     */
+    public synchronized RenderedPage putPage( String strKey, long lGeneration, XPage xpage )
+    {
+        RenderedPage page = new RenderedPage( xpage, _lLastModified );
+
+        // checked and put under the same lock as invalidate, so that a page rendered before a write is never put after it
+        if ( lGeneration == _lGeneration )
+        {
+            putInCache( strKey, page );
+        }
+
+        return page;
+    }
+
+    /**
+     * Drop all the rendered pages, to call after every write on the projects
+     */
+    public synchronized void invalidate( )
+    {
+        _lGeneration++;
+        _lLastModified = Math.max( currentSecond( ), _lLastModified + 1000 );
+        resetCache( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void onProjectsChanged( )
+    {
+        invalidate( );
+    }
+
+    /**
+     * Returns the cache key of a page
+     * @param strView the view
+     * @param locale the locale of the page
+     * @param mapParameters the parameters that change the content of the page
+     * @return the key
+     */
+    public static String getKey( String strView, Locale locale, Map<String, String> mapParameters )
+    {
+        StringBuilder sbKey = new StringBuilder( strView ).append( KEY_SEPARATOR ).append( locale );
+
+        for ( Map.Entry<String, String> parameter : new TreeMap<>( mapParameters ).entrySet( ) )
+        {
+            sbKey.append( KEY_SEPARATOR ).append( parameter.getKey( ) ).append( KEY_SEPARATOR ).append( parameter.getValue( ) );
+        }
+
+        return sbKey.toString( );
+    }
+
+    /**
+     * The current time, truncated to the second like the HTTP dates
+     * @return the time in milliseconds
+     */
+    private static long currentSecond( )
+    {
+        return ( System.currentTimeMillis( ) / 1000 ) * 1000;
+    }
+
+    /**
+     * A rendered page with its validators
+     */
+    public static final class RenderedPage implements Serializable
+    {
+        private static final long serialVersionUID = 1L;
+
+        private final String _strContent;
+        private final String _strTitle;
+        private final String _strPathLabel;
+        private final String _strETag;
+        private final long _lLastModified;
+
+        /**
+         * Constructor
+         * @param xpage the page
+         * @param lLastModified the date of the last modification of the projects
+         */
+        RenderedPage( XPage xpage, long lLastModified )
+        {
+            _strContent = xpage.getContent( );
+            _strTitle = xpage.getTitle( );
+            _strPathLabel = xpage.getPathLabel( );
+            _strETag = computeETag( _strTitle, _strPathLabel, _strContent );
+            _lLastModified = lLastModified;
+        }
+
+        /**
+         * Returns a new XPage with the content of the rendered page
+         * @return the XPage
+         */
+        public XPage toXPage( )
+        {
+            XPage xpage = new XPage( );
+            xpage.setContent( _strContent );
+            xpage.setTitle( _strTitle );
+            xpage.setPathLabel( _strPathLabel );
+
+            return xpage;
+        }
+
+        /**
+         * Returns the weak ETag of the page, computed from the content of the XPage only
+         * @return the quoted ETag, with its W/ prefix
+         */
+        public String getETag( )
+        {
+            return _strETag;
+        }
+
+        /**
+         * Returns the date of the last modification of the projects when the page was rendered
+         * @return the date in milliseconds
+         */
+        public long getLastModified( )
+        {
+            return _lLastModified;
+        }
+
+        /**
+         * Compute a weak ETag from the parts of a page
+         * @param parts the parts
+         * @return the quoted ETag, with its W/ prefix
+         */
+        private static String computeETag( String... parts )
+        {
+            try
+            {
+                MessageDigest digest = MessageDigest.getInstance( DIGEST_ALGORITHM );
+                for ( String strPart : parts )
+                {
+                    if ( strPart != null )
+                    {
+                        digest.update( strPart.getBytes( StandardCharsets.UTF_8 ) );
+                    }
+                    digest.update( (byte) 0 );
+                }
+                byte [ ] hash = digest.digest( );
+                StringBuilder sbETag = new StringBuilder( WEAK_ETAG_PREFIX ).append( '"' );
+                for ( int i = 0; i < ETAG_BYTES; i++ )
+                {
+                    sbETag.append( String.format( "%02x", hash [i] ) );
+                }
+
+                return sbETag.append( '"' ).toString( );
+            }
+            catch( NoSuchAlgorithmException e )
+            {
+                throw new IllegalStateException( e );
+            }
+        }
+    }
+}
@@ -34,20 +34,30 @@
  
 package fr.paris.lutece.plugins.project.web;
 
+import fr.paris.lutece.plugins.project.business.KeysetPage;
 import fr.paris.lutece.portal.service.util.AppPropertiesService;
 import fr.paris.lutece.portal.util.mvc.admin.MVCAdminJspBean;
-import fr.paris.lutece.portal.web.util.LocalizedPaginator;
+import fr.paris.lutece.portal.web.util.LocalizedDelegatePaginator;
 import fr.paris.lutece.util.html.AbstractPaginator;
 import fr.paris.lutece.util.url.UrlItem;
 
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.TreeMap;
 import java.util.List;
 import java.util.Map;
 import javax.servlet.http.HttpServletRequest;
 
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
 
+/**
+ * Paginated lists of the back office. The search, the sort and the number of items per page are carried by a signed
+ * "state" parameter of the URLs and the page by the page index or the cursor : nothing is kept in session,
+ * so any node can serve any page.
+ * @param <S> the type of the ids
+ * @param <T> the type of the items
+ */
 public abstract class AbstractJspBean <S, T> extends MVCAdminJspBean
 {
     
@@ -59,51 +69,123 @@ public abstract class AbstractJspBean <S, T> extends MVCAdminJspBean
     private static final String PARAMETER_PAGE_INDEX = "page_index";
     protected static final String PARAMETER_SEARCH_ORDER_BY = "orderBy";
     private static final String  PARAMETER_MAP_FILTER_CRITERIA = "mapFilterCriteria";  
+    protected static final String PARAMETER_CURSOR = "cursor";
+    protected static final String PARAMETER_LIST_STATE = "state";
     
     // Markers
     private static final String MARK_PAGINATOR = "paginator";
     private static final String MARK_NB_ITEMS_PER_PAGE = "nb_items_per_page";
+    private static final String MARK_FIRST_PAGE_URL = "first_page_url";
+    private static final String MARK_NEXT_PAGE_URL = "next_page_url";
+    protected static final String MARK_LIST_STATE = "list_state";
+
+    // Messages
+    private static final String MESSAGE_ERROR_INVALID_FILTER = "project.message.errorInvalidFilter";
 
     //Search
     private static final String FILTER_ATTRIBUTES_PREFIX = "filter_";
-    private static final String SORT_ATTRIBUTES_ASC = " ASC ";
-    private static final String SORT_ATTRIBUTES_DESC = " DESC ";
-    
-    //Variables
-    private String _strCurrentPageIndex;
-    private int _nItemsPerPage;
-    private String _strSortMode="";
 
     /**
-     * Return a model that contains the list and paginator infos
+     * Return a model that contains the paginator infos and the items of the current page only.
+     * The paginator is built from the number of matching items, and only the ids of the current page are loaded.
      * @param request The HTTP request
      * @param strBookmark The bookmark
-     * @param list The list of item
+     * @param state The search, sort and number of items per page
      * @param strManageJsp The JSP
      * @return The model
      */
-    protected <T> Map<String, Object> getPaginatedListModel( HttpServletRequest request, String strBookmark, List<S> list,
-        String strManageJsp )
+    protected Map<String, Object> getPaginatedListModel( HttpServletRequest request, String strBookmark, ListState state, String strManageJsp )
     {
-        int nDefaultItemsPerPage = getPluginDefaultNumberOfItemPerPage( );
-        _strCurrentPageIndex = AbstractPaginator.getPageIndex( request, AbstractPaginator.PARAMETER_PAGE_INDEX, _strCurrentPageIndex );
-        _nItemsPerPage = AbstractPaginator.getItemsPerPage( request, AbstractPaginator.PARAMETER_ITEMS_PER_PAGE, _nItemsPerPage, nDefaultItemsPerPage );
+        int nItemsPerPage = getItemsPerPage( state );
+        int nItemsCount = getItemsCount( state );
+        int nPagesCount = Math.max( 1, ( nItemsCount + nItemsPerPage - 1 ) / nItemsPerPage );
+        int nPageIndex = Math.min( Math.max( 1, NumberUtils.toInt( request.getParameter( AbstractPaginator.PARAMETER_PAGE_INDEX ), 1 ) ), nPagesCount );
+
+        List<S> listIds = getIdsRange( state, ( nPageIndex - 1 ) * nItemsPerPage, nItemsPerPage );
 
+        String strState = state.encode( );
         UrlItem url = new UrlItem( strManageJsp );
+        url.addParameter( PARAMETER_LIST_STATE, strState );
         String strUrl = url.getUrl(  );
 
         // PAGINATOR
-        LocalizedPaginator<S> paginator = new LocalizedPaginator<>( list, _nItemsPerPage, strUrl, PARAMETER_PAGE_INDEX, _strCurrentPageIndex, getLocale(  ) );
+        LocalizedDelegatePaginator<S> paginator = new LocalizedDelegatePaginator<>( listIds, nItemsPerPage, strUrl, PARAMETER_PAGE_INDEX, String.valueOf( nPageIndex ), nItemsCount, getLocale(  ) );
 
         Map<String, Object> model = getModel(  );
 
-        model.put( MARK_NB_ITEMS_PER_PAGE, String.valueOf( _nItemsPerPage ) );
+        model.put( MARK_NB_ITEMS_PER_PAGE, String.valueOf( nItemsPerPage ) );
         model.put( MARK_PAGINATOR, paginator );
-        model.put( strBookmark, getItemsFromIds ( paginator.getPageItems( ) ) );
+        model.put( MARK_LIST_STATE, strState );
+        model.put( strBookmark, getItemsFromIds ( listIds ) );
 
         return model;
     }
-    
+
+    /**
+     * Count the items matching a search
+     * @param state the search
+     * @return the number of items
+     */
+     abstract int getItemsCount( ListState state );
+
+    /**
+     * Get the Ids of one numbered page of a search
+     * @param state the search and sort
+     * @param nOffset the number of items to skip
+     * @param nLimit the number of items per page
+     * @return the ids of the page
+     */
+     abstract List<S> getIdsRange( ListState state, int nOffset, int nLimit );
+
+    /**
+     * Return a model that contains one page of a keyset (seek) pagination and the urls of the first and next pages.
+     * Only the ids of the requested page are loaded, so a deep page costs the same as the first one.
+     * @param request The HTTP request
+     * @param strBookmark The bookmark
+     * @param state The search, sort and number of items per page
+     * @param strManageJsp The JSP
+     * @return The model
+     */
+    protected Map<String, Object> getKeysetPaginatedListModel( HttpServletRequest request, String strBookmark, ListState state, String strManageJsp )
+    {
+        int nItemsPerPage = getItemsPerPage( state );
+
+        KeysetPage<S> page = getPageOfIds( state, request.getParameter( PARAMETER_CURSOR ), nItemsPerPage );
+
+        // an empty cursor keeps the current search and displays its first page
+        String strState = state.encode( );
+        UrlItem urlFirstPage = new UrlItem( strManageJsp );
+        urlFirstPage.addParameter( PARAMETER_LIST_STATE, strState );
+        urlFirstPage.addParameter( PARAMETER_CURSOR, "" );
+
+        Map<String, Object> model = getModel(  );
+
+        model.put( MARK_NB_ITEMS_PER_PAGE, String.valueOf( nItemsPerPage ) );
+        model.put( MARK_FIRST_PAGE_URL, urlFirstPage.getUrl( ) );
+        model.put( MARK_LIST_STATE, strState );
+
+        if ( page.hasNext( ) )
+        {
+            UrlItem urlNextPage = new UrlItem( strManageJsp );
+            urlNextPage.addParameter( PARAMETER_LIST_STATE, strState );
+            urlNextPage.addParameter( PARAMETER_CURSOR, page.getNextCursor( ) );
+            model.put( MARK_NEXT_PAGE_URL, urlNextPage.getUrl( ) );
+        }
+
+        model.put( strBookmark, getItemsFromIds( page.getItems( ) ) );
+
+        return model;
+    }
+
+    /**
+     * Get one page of Ids for the keyset pagination
+     * @param state the search and sort
+     * @param strCursor the token of the page, null or empty for the first page
+     * @param nItemsPerPage the number of items per page
+     * @return the page of ids
+     */
+     abstract KeysetPage<S> getPageOfIds( ListState state, String strCursor, int nItemsPerPage );
+
     /**
      * Get Items from Ids list
      * @param <T>
@@ -117,16 +199,98 @@ public abstract class AbstractJspBean <S, T> extends MVCAdminJspBean
      abstract  List<T> getItemsFromIds ( List<S> listIds ) ;
      
      int getPluginDefaultNumberOfItemPerPage( ) { return PROPERTY_DEFAULT_ITEM_PER_PAGE; } ;
-     
-      /**
-      * set _strCurrentPageIndex to null
+
+     /**
+      * Get the names of the filter criteria whose value cannot be searched
+      * @param mapFilterCriteria the filter criteria
+      * @return the names of the invalid criteria
+      */
+     abstract List<String> checkFilterCriteria( Map<String, String> mapFilterCriteria );
+
+     /**
+      * Get the state of the list from the request :
+      * the signed state of the current list, or a new search from the filter criteria if there is none,
+      * then sorted by the "orderBy" column and with the requested number of items per page if any
+      * @param request the HTTP request
+      * @return the state of the list
+      */
+     protected ListState getListState( HttpServletRequest request )
+     {
+    	 ListState state = ListState.decode( request.getParameter( PARAMETER_LIST_STATE ) );
+
+    	 if ( state == null )
+    	 {
+    		 Map<String, String> mapFilterCriteria = getFilterCriteriaFromRequest( request );
+
+    		 // invalid values for int, date or boolean columns are dropped before reaching SQL
+    		 List<String> listInvalidCriteria = checkFilterCriteria( mapFilterCriteria );
+    		 if ( !listInvalidCriteria.isEmpty( ) )
+    		 {
+    			 listInvalidCriteria.forEach( mapFilterCriteria::remove );
+    			 addError( MESSAGE_ERROR_INVALID_FILTER, getLocale( ) );
+    		 }
+    		 state = new ListState( mapFilterCriteria, null, null, 0 );
+    	 }
+
+    	 // at each sort request on the same column, the sort mode switches (ASC to DESC and vice versa)
+    	 String strOrderBy = request.getParameter( PARAMETER_SEARCH_ORDER_BY );
+    	 if ( StringUtils.isNotBlank( strOrderBy ) )
+    	 {
+    		 state = state.sortedBy( strOrderBy );
+    	 }
+
+    	 int nItemsPerPage = NumberUtils.toInt( request.getParameter( AbstractPaginator.PARAMETER_ITEMS_PER_PAGE ), 0 );
+    	 if ( nItemsPerPage > 0 )
+    	 {
+    		 state = state.withItemsPerPage( nItemsPerPage );
+    	 }
+
+    	 return state;
+     }
+
+     /**
+      * Get the parameters that bring back to the current list after an action, to add to a redirection
+      * @param request the HTTP request, which may carry the state of the list
+      * @return the state parameter if the request carries a valid one
       */
-     protected void resetCurrentPageIndexOfPaginator() {
-    	 _strCurrentPageIndex=null;
+     protected Map<String, String> getListStateParameters( HttpServletRequest request )
+     {
+    	 Map<String, String> mapParameters = new HashMap<>( );
+    	 String strState = getListStateToken( request );
+
+    	 if ( strState != null )
+    	 {
+    		 mapParameters.put( PARAMETER_LIST_STATE, strState );
+    	 }
+
+    	 return mapParameters;
+     }
+
+     /**
+      * Get the state of the list carried by the request, to forward it through a form
+      * @param request the HTTP request
+      * @return the token, or null if the request carries no valid state
+      */
+     protected String getListStateToken( HttpServletRequest request )
+     {
+    	 String strState = request.getParameter( PARAMETER_LIST_STATE );
+
+    	 return ( ListState.decode( strState ) != null ) ? strState : null;
+     }
+
+     /**
+      * Get the number of items per page of a list
+      * @param state the state of the list
+      * @return the number of items per page of the state, or the default one
+      */
+     private int getItemsPerPage( ListState state )
+     {
+    	 return ( state.getItemsPerPage( ) > 0 ) ? state.getItemsPerPage( ) : getPluginDefaultNumberOfItemPerPage( );
      }
      
      /**
       * the name of the filter criteria sent in the request must start with "filter_"
+      * the bounds of a range on a date or int column end with "_from" or "_to", for example filter_sept_date_from
       * @param request 
       * @return mapFilterCriteria : contains all names/values filter criteria
       */
@@ -134,7 +298,7 @@ public abstract class AbstractJspBean <S, T> extends MVCAdminJspBean
      {	
     	   	
      	Enumeration enumeration = request.getParameterNames( );
-     	Map<String, String> mapFilterCriteria = new HashMap<>( );
+     	Map<String, String> mapFilterCriteria = new TreeMap<>( );
          
      	while ( enumeration.hasMoreElements( ) )
 		{
@@ -159,16 +323,4 @@ public abstract class AbstractJspBean <S, T> extends MVCAdminJspBean
     	 //Persistent values of search inputs
     	 model.put(PARAMETER_MAP_FILTER_CRITERIA, mapFilterCriteria); 
  	}
-
-     /**
-      *  get _strSortMode
-      *  At each sort request, the sort mode switches (ASC to DESC and vice versa)
-      */
-     protected String getSortMode() {
-    	 	 
-    	 _strSortMode = (_strSortMode==SORT_ATTRIBUTES_ASC)?SORT_ATTRIBUTES_DESC:SORT_ATTRIBUTES_ASC;
-
-    	 return _strSortMode;
-    	 
-     }
 }
\ No newline at end of file
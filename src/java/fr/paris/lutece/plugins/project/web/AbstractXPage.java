@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.web;
+
+import fr.paris.lutece.portal.service.util.AppPropertiesService;
+import fr.paris.lutece.portal.util.mvc.xpage.MVCApplication;
+import fr.paris.lutece.portal.web.util.LocalizedDelegatePaginator;
+import fr.paris.lutece.util.html.AbstractPaginator;
+import fr.paris.lutece.util.url.UrlItem;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+
+/**
+ * Paginated and filtered list for the front office. Nothing is kept in session : the search, the sort and the page
+ * are read from the request, and only the ids of the requested page are loaded, with a page size limited by the server.
+ * @param <S> the type of the ids
+ * @param <T> the type of the items
+ */
+public abstract class AbstractXPage <S, T> extends MVCApplication
+{
+    // Properties
+    private static final String PROPERTY_ITEMS_PER_PAGE = "project.xpage.itemsPerPage";
+    private static final String PROPERTY_MAX_ITEMS_PER_PAGE = "project.xpage.itemsPerPage.max";
+    private static final int DEFAULT_ITEMS_PER_PAGE = 10;
+    private static final int DEFAULT_MAX_ITEMS_PER_PAGE = 50;
+
+    // Parameters
+    protected static final String PARAMETER_SEARCH_ORDER_BY = "orderBy";
+    protected static final String PARAMETER_SORT_MODE = "sortMode";
+
+    // Messages
+    private static final String MESSAGE_ERROR_INVALID_FILTER = "project.message.errorInvalidFilter";
+
+    // Markers
+    private static final String MARK_ERRORS = "errors";
+    private static final String MARK_INFOS = "infos";
+    private static final String MARK_WARNINGS = "warnings";
+    private static final String MARK_PAGINATOR = "paginator";
+    private static final String MARK_NB_ITEMS_PER_PAGE = "nb_items_per_page";
+    private static final String MARK_MAP_FILTER_CRITERIA = "mapFilterCriteria";
+    private static final String MARK_ORDER_BY = "order_by";
+    private static final String MARK_SORT_MODE = "sort_mode";
+    private static final String MARK_SEARCH_URL = "search_url";
+
+    // Search
+    private static final String FILTER_ATTRIBUTES_PREFIX = "filter_";
+    private static final String SORT_ASC = "ASC";
+    private static final String SORT_DESC = "DESC";
+
+    // Variables
+    private boolean _bPendingMessages;
+
+    /**
+     * Return a model that contains the items of the requested page, its paginator and the current search
+     * @param request The HTTP request
+     * @param strBookmark The bookmark of the items
+     * @param strXPageUrl The url of the list
+     * @return The model
+     */
+    protected Map<String, Object> getPaginatedListModel( HttpServletRequest request, String strBookmark, String strXPageUrl )
+    {
+        Map<String, String> mapFilterCriteria = getFilterCriteriaFromRequest( request );
+        String strOrderBy = StringUtils.trimToNull( request.getParameter( PARAMETER_SEARCH_ORDER_BY ) );
+        String strSortMode = SORT_DESC.equalsIgnoreCase( request.getParameter( PARAMETER_SORT_MODE ) ) ? SORT_DESC : SORT_ASC;
+
+        int nMaxItemsPerPage = Math.max( 1, AppPropertiesService.getPropertyInt( PROPERTY_MAX_ITEMS_PER_PAGE, DEFAULT_MAX_ITEMS_PER_PAGE ) );
+        int nDefaultItemsPerPage = AppPropertiesService.getPropertyInt( PROPERTY_ITEMS_PER_PAGE, DEFAULT_ITEMS_PER_PAGE );
+        int nItemsPerPage = NumberUtils.toInt( request.getParameter( AbstractPaginator.PARAMETER_ITEMS_PER_PAGE ), nDefaultItemsPerPage );
+        nItemsPerPage = Math.min( Math.max( 1, nItemsPerPage ), nMaxItemsPerPage );
+
+        int nItemsCount = getItemsCount( mapFilterCriteria );
+        int nPagesCount = Math.max( 1, ( nItemsCount + nItemsPerPage - 1 ) / nItemsPerPage );
+        int nPageIndex = Math.min( Math.max( 1, NumberUtils.toInt( request.getParameter( AbstractPaginator.PARAMETER_PAGE_INDEX ), 1 ) ), nPagesCount );
+
+        List<S> listIds = getIdsRange( mapFilterCriteria, strOrderBy, strSortMode, ( nPageIndex - 1 ) * nItemsPerPage, nItemsPerPage );
+
+        // the links of the paginator keep the search and the sort
+        UrlItem url = new UrlItem( strXPageUrl );
+        for ( Map.Entry<String, String> criteria : mapFilterCriteria.entrySet( ) )
+        {
+            url.addParameter( FILTER_ATTRIBUTES_PREFIX + criteria.getKey( ), encode( criteria.getValue( ) ) );
+        }
+        String strSearchUrl = url.getUrl( );
+        if ( strOrderBy != null )
+        {
+            url.addParameter( PARAMETER_SEARCH_ORDER_BY, encode( strOrderBy ) );
+            url.addParameter( PARAMETER_SORT_MODE, strSortMode );
+        }
+        url.addParameter( AbstractPaginator.PARAMETER_ITEMS_PER_PAGE, nItemsPerPage );
+
+        LocalizedDelegatePaginator<S> paginator = new LocalizedDelegatePaginator<>( listIds, nItemsPerPage, url.getUrl( ),
+                AbstractPaginator.PARAMETER_PAGE_INDEX, String.valueOf( nPageIndex ), nItemsCount, getLocale( request ) );
+
+        Map<String, Object> model = getModel( );
+        model.put( MARK_NB_ITEMS_PER_PAGE, String.valueOf( nItemsPerPage ) );
+        model.put( MARK_PAGINATOR, paginator );
+        model.put( MARK_MAP_FILTER_CRITERIA, mapFilterCriteria );
+        model.put( MARK_ORDER_BY, strOrderBy );
+        model.put( MARK_SORT_MODE, strSortMode );
+        model.put( MARK_SEARCH_URL, strSearchUrl );
+        model.put( strBookmark, getItemsFromIds( listIds ) );
+
+        return model;
+    }
+
+    /**
+     * Read the search criteria of the request, the invalid ones are ignored.
+     * The name of the filter criteria sent in the request must start with "filter_"
+     * @param request The HTTP request
+     * @return the criteria by name, sorted by name
+     */
+    protected Map<String, String> getFilterCriteriaFromRequest( HttpServletRequest request )
+    {
+        Map<String, String> mapFilterCriteria = new TreeMap<>( );
+        Enumeration<String> enumeration = request.getParameterNames( );
+
+        while ( enumeration.hasMoreElements( ) )
+        {
+            String strParameterName = enumeration.nextElement( );
+            String strValue = request.getParameter( strParameterName );
+
+            if ( strParameterName.startsWith( FILTER_ATTRIBUTES_PREFIX ) && StringUtils.isNotBlank( strValue ) )
+            {
+                mapFilterCriteria.put( strParameterName.substring( FILTER_ATTRIBUTES_PREFIX.length( ) ), strValue );
+            }
+        }
+
+        // invalid values for int, date or boolean columns are dropped before reaching SQL
+        List<String> listInvalidCriteria = checkFilterCriteria( mapFilterCriteria );
+        if ( !listInvalidCriteria.isEmpty( ) )
+        {
+            listInvalidCriteria.forEach( mapFilterCriteria::remove );
+            addError( MESSAGE_ERROR_INVALID_FILTER, getLocale( request ) );
+        }
+
+        return mapFilterCriteria;
+    }
+
+    /**
+     * Get the parameters of the request that change the content of the list : filters, sort and page
+     * @param request The HTTP request
+     * @return the non blank parameters by name
+     */
+    protected Map<String, String> getListParameters( HttpServletRequest request )
+    {
+        Map<String, String> mapParameters = new TreeMap<>( );
+        Enumeration<String> enumeration = request.getParameterNames( );
+
+        while ( enumeration.hasMoreElements( ) )
+        {
+            String strParameterName = enumeration.nextElement( );
+            String strValue = request.getParameter( strParameterName );
+
+            if ( StringUtils.isNotBlank( strValue ) && ( strParameterName.startsWith( FILTER_ATTRIBUTES_PREFIX )
+                    || PARAMETER_SEARCH_ORDER_BY.equals( strParameterName ) || PARAMETER_SORT_MODE.equals( strParameterName )
+                    || AbstractPaginator.PARAMETER_PAGE_INDEX.equals( strParameterName )
+                    || AbstractPaginator.PARAMETER_ITEMS_PER_PAGE.equals( strParameterName ) ) )
+            {
+                mapParameters.put( strParameterName, strValue );
+            }
+        }
+
+        return mapParameters;
+    }
+
+    /**
+     * Whether infos or errors have been added since the last model was built, they are shown by the next page only
+     * @return true if messages are waiting to be displayed
+     */
+    protected boolean hasPendingMessages( )
+    {
+        return _bPendingMessages;
+    }
+
+    /**
+     * Whether a model contains messages for the current user
+     * @param model the model
+     * @return true if the model contains infos, warnings or errors
+     */
+    protected static boolean hasMessages( Map<String, Object> model )
+    {
+        return isNotEmpty( model.get( MARK_ERRORS ) ) || isNotEmpty( model.get( MARK_INFOS ) ) || isNotEmpty( model.get( MARK_WARNINGS ) );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected Map<String, Object> getModel( )
+    {
+        // the pending messages are moved to the model
+        _bPendingMessages = false;
+
+        return super.getModel( );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void addInfo( String strMessageKey, Locale locale )
+    {
+        _bPendingMessages = true;
+        super.addInfo( strMessageKey, locale );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void addError( String strMessageKey, Locale locale )
+    {
+        _bPendingMessages = true;
+        super.addError( strMessageKey, locale );
+    }
+
+    /**
+     * Whether a value of a model is a non empty collection
+     * @param value the value
+     * @return true if the value is a non empty collection
+     */
+    private static boolean isNotEmpty( Object value )
+    {
+        return ( value instanceof Collection ) && !( (Collection<?>) value ).isEmpty( );
+    }
+
+    /**
+     * Encode a value of the query string
+     * @param strValue the value
+     * @return the encoded value
+     */
+    private static String encode( String strValue )
+    {
+        try
+        {
+            return URLEncoder.encode( strValue, StandardCharsets.UTF_8.name( ) );
+        }
+        catch( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Get the names of the criteria whose value cannot be searched
+     * @param mapFilterCriteria the criteria
+     * @return the names of the invalid criteria
+     */
+    abstract List<String> checkFilterCriteria( Map<String, String> mapFilterCriteria );
+
+    /**
+     * Count the items matching the search
+     * @param mapFilterCriteria the criteria
+     * @return the number of items
+     */
+    abstract int getItemsCount( Map<String, String> mapFilterCriteria );
+
+    /**
+     * Get the Ids of one page of the search
+     * @param mapFilterCriteria the criteria
+     * @param strOrderBy the sort column, may be null
+     * @param strSortMode the sort mode : ASC or DESC
+     * @param nOffset the number of items to skip
+     * @param nLimit the number of items per page
+     * @return the ids of the page
+     */
+    abstract List<S> getIdsRange( Map<String, String> mapFilterCriteria, String strOrderBy, String strSortMode, int nOffset, int nLimit );
+
+    /**
+     * Get the items of a page from their ids
+     * @param listIds the ids
+     * @return the items, in the order of the ids
+     */
+    abstract List<T> getItemsFromIds( List<S> listIds );
+}
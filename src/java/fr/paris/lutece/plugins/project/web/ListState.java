@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+package fr.paris.lutece.plugins.project.web;
+
+import fr.paris.lutece.portal.service.util.AppLogService;
+import fr.paris.lutece.portal.service.util.CryptoService;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * State of a list : filter criteria, sort and number of items per page, carried by the URLs instead of the session.
+ * The token is signed with the crypto key of the site, shared by all the nodes through the datastore,
+ * so that any node can serve any page and the criteria checked when the search was submitted can be trusted.
+ */
+final class ListState
+{
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+    private static final int RANDOM_KEY_BYTES = 32;
+    private static final char SIGNATURE_SEPARATOR = '.';
+    private static final char PAIR_SEPARATOR = '&';
+    private static final char VALUE_SEPARATOR = '=';
+    private static final String KEY_ORDER_BY = "o";
+    private static final String KEY_SORT_MODE = "s";
+    private static final String KEY_ITEMS_PER_PAGE = "n";
+    private static final String KEY_FILTER_PREFIX = "f.";
+    private static final String SORT_ASC = "ASC";
+    private static final String SORT_DESC = "DESC";
+
+    private final Map<String, String> _mapFilterCriteria;
+    private final String _strOrderBy;
+    private final String _strSortMode;
+    private final int _nItemsPerPage;
+
+    /**
+     * Constructor
+     * @param mapFilterCriteria the filter criteria
+     * @param strOrderBy the sort column, may be null
+     * @param strSortMode the sort mode, ASC or DESC, may be null without sort column
+     * @param nItemsPerPage the number of items per page, 0 for the default
+     */
+    ListState( Map<String, String> mapFilterCriteria, String strOrderBy, String strSortMode, int nItemsPerPage )
+    {
+        _mapFilterCriteria = Collections.unmodifiableMap( new TreeMap<>( mapFilterCriteria ) );
+        _strOrderBy = StringUtils.trimToNull( strOrderBy );
+        _strSortMode = ( _strOrderBy == null ) ? null : ( SORT_DESC.equals( strSortMode ) ? SORT_DESC : SORT_ASC );
+        _nItemsPerPage = Math.max( 0, nItemsPerPage );
+    }
+
+    /**
+     * Returns the filter criteria
+     * @return the criteria by name
+     */
+    Map<String, String> getFilterCriteria( )
+    {
+        return _mapFilterCriteria;
+    }
+
+    /**
+     * Returns the sort column
+     * @return the column, or null
+     */
+    String getOrderBy( )
+    {
+        return _strOrderBy;
+    }
+
+    /**
+     * Returns the sort mode
+     * @return ASC or DESC, or null without sort column
+     */
+    String getSortMode( )
+    {
+        return _strSortMode;
+    }
+
+    /**
+     * Returns the number of items per page
+     * @return the number of items, 0 for the default
+     */
+    int getItemsPerPage( )
+    {
+        return _nItemsPerPage;
+    }
+
+    /**
+     * Returns the state sorted by a column : ascending, or descending if the list is already sorted ascending by this column
+     * @param strOrderBy the column
+     * @return the new state
+     */
+    ListState sortedBy( String strOrderBy )
+    {
+        String strSortMode = ( strOrderBy.equals( _strOrderBy ) && SORT_ASC.equals( _strSortMode ) ) ? SORT_DESC : SORT_ASC;
+
+        return new ListState( _mapFilterCriteria, strOrderBy, strSortMode, _nItemsPerPage );
+    }
+
+    /**
+     * Returns the state with another number of items per page
+     * @param nItemsPerPage the number of items per page
+     * @return the new state
+     */
+    ListState withItemsPerPage( int nItemsPerPage )
+    {
+        return new ListState( _mapFilterCriteria, _strOrderBy, _strSortMode, nItemsPerPage );
+    }
+
+    /**
+     * Encode the state as a signed token usable in an URL
+     * @return the token
+     */
+    String encode( )
+    {
+        StringBuilder builder = new StringBuilder( );
+        appendPair( builder, KEY_ITEMS_PER_PAGE, Integer.toString( _nItemsPerPage ) );
+
+        if ( _strOrderBy != null )
+        {
+            appendPair( builder, KEY_ORDER_BY, _strOrderBy );
+            appendPair( builder, KEY_SORT_MODE, _strSortMode );
+        }
+        for ( Map.Entry<String, String> criteria : _mapFilterCriteria.entrySet( ) )
+        {
+            appendPair( builder, KEY_FILTER_PREFIX + criteria.getKey( ), criteria.getValue( ) );
+        }
+
+        String strPayload = Base64.getUrlEncoder( ).withoutPadding( ).encodeToString( builder.toString( ).getBytes( StandardCharsets.UTF_8 ) );
+
+        return strPayload + SIGNATURE_SEPARATOR + sign( strPayload );
+    }
+
+    /**
+     * Decode a token built by {@link #encode()}
+     * @param strToken the token
+     * @return the state, or null if the token is blank, malformed or its signature is wrong
+     */
+    static ListState decode( String strToken )
+    {
+        if ( StringUtils.isEmpty( strToken ) )
+        {
+            return null;
+        }
+
+        int nSeparator = strToken.lastIndexOf( SIGNATURE_SEPARATOR );
+        if ( nSeparator < 0 )
+        {
+            return null;
+        }
+
+        String strPayload = strToken.substring( 0, nSeparator );
+        byte [ ] signature = sign( strPayload ).getBytes( StandardCharsets.US_ASCII );
+        if ( !MessageDigest.isEqual( signature, strToken.substring( nSeparator + 1 ).getBytes( StandardCharsets.US_ASCII ) ) )
+        {
+            return null;
+        }
+
+        try
+        {
+            String strDecoded = new String( Base64.getUrlDecoder( ).decode( strPayload ), StandardCharsets.UTF_8 );
+            Map<String, String> mapFilterCriteria = new TreeMap<>( );
+            String strOrderBy = null;
+            String strSortMode = null;
+            int nItemsPerPage = 0;
+
+            for ( String strPair : StringUtils.split( strDecoded, PAIR_SEPARATOR ) )
+            {
+                int nValue = strPair.indexOf( VALUE_SEPARATOR );
+                String strKey = urlDecode( strPair.substring( 0, nValue ) );
+                String strValue = urlDecode( strPair.substring( nValue + 1 ) );
+
+                if ( strKey.startsWith( KEY_FILTER_PREFIX ) )
+                {
+                    mapFilterCriteria.put( strKey.substring( KEY_FILTER_PREFIX.length( ) ), strValue );
+                }
+                else if ( KEY_ORDER_BY.equals( strKey ) )
+                {
+                    strOrderBy = strValue;
+                }
+                else if ( KEY_SORT_MODE.equals( strKey ) )
+                {
+                    strSortMode = strValue;
+                }
+                else if ( KEY_ITEMS_PER_PAGE.equals( strKey ) )
+                {
+                    nItemsPerPage = Integer.parseInt( strValue );
+                }
+            }
+
+            return new ListState( mapFilterCriteria, strOrderBy, strSortMode, nItemsPerPage );
+        }
+        catch( IllegalArgumentException | IndexOutOfBoundsException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Append an URL encoded pair to the payload
+     * @param builder the payload
+     * @param strKey the key
+     * @param strValue the value
+     */
+    private static void appendPair( StringBuilder builder, String strKey, String strValue )
+    {
+        if ( builder.length( ) > 0 )
+        {
+            builder.append( PAIR_SEPARATOR );
+        }
+        builder.append( urlEncode( strKey ) ).append( VALUE_SEPARATOR ).append( urlEncode( strValue ) );
+    }
+
+    /**
+     * URL encode a key or a value of the payload
+     * @param strValue the value
+     * @return the encoded value
+     */
+    private static String urlEncode( String strValue )
+    {
+        try
+        {
+            return URLEncoder.encode( strValue, StandardCharsets.UTF_8.name( ) );
+        }
+        catch( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * URL decode a key or a value of the payload
+     * @param strValue the encoded value
+     * @return the value
+     */
+    private static String urlDecode( String strValue )
+    {
+        try
+        {
+            return URLDecoder.decode( strValue, StandardCharsets.UTF_8.name( ) );
+        }
+        catch( UnsupportedEncodingException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Compute the signature of a payload
+     * @param strPayload the payload
+     * @return the signature, URL safe
+     */
+    private static String sign( String strPayload )
+    {
+        try
+        {
+            Mac mac = Mac.getInstance( HMAC_ALGORITHM );
+            mac.init( new SecretKeySpec( KeyHolder.KEY, HMAC_ALGORITHM ) );
+
+            return Base64.getUrlEncoder( ).withoutPadding( ).encodeToString( mac.doFinal( strPayload.getBytes( StandardCharsets.UTF_8 ) ) );
+        }
+        catch( GeneralSecurityException e )
+        {
+            throw new IllegalStateException( e );
+        }
+    }
+
+    /**
+     * Signing key, read once
+     */
+    private static final class KeyHolder
+    {
+        private static final byte [ ] KEY = loadKey( );
+
+        /**
+         * Read the crypto key of the site, or use a random one for this node only if there is none
+         * @return the key
+         */
+        private static byte [ ] loadKey( )
+        {
+            String strKey = CryptoService.getCryptoKey( );
+
+            if ( StringUtils.isNotEmpty( strKey ) )
+            {
+                return strKey.getBytes( StandardCharsets.UTF_8 );
+            }
+
+            AppLogService.error( "No crypto key : the list URLs of the projects are only valid on this node until it restarts" );
+            byte [ ] key = new byte [ RANDOM_KEY_BYTES];
+            new SecureRandom( ).nextBytes( key );
+
+            return key;
+        }
+    }
+}
@@ -48,14 +48,14 @@ import fr.paris.lutece.portal.util.mvc.commons.annotations.View;
 import fr.paris.lutece.util.url.UrlItem;
 import fr.paris.lutece.util.html.AbstractPaginator;
 
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.ArrayList;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang3.StringUtils;
 
@@ -68,8 +68,13 @@ import fr.paris.lutece.portal.web.upload.MultipartHttpServletRequest;
 import org.apache.commons.fileupload.FileItem;
 import fr.paris.lutece.portal.business.file.File;
 
+import fr.paris.lutece.plugins.project.business.KeysetPage;
 import fr.paris.lutece.plugins.project.business.Project;
 import fr.paris.lutece.plugins.project.business.ProjectHome;
+import fr.paris.lutece.plugins.project.service.ProjectFileCacheService;
+import fr.paris.lutece.plugins.project.service.ProjectExportService;
+import fr.paris.lutece.plugins.project.service.ProjectImportService;
+import fr.paris.lutece.plugins.project.service.ProjectImportStatus;
 
 /**
  * This class provides the user interface to manage Project features ( manage, create, modify, remove )
@@ -85,18 +90,26 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
     private static final String TEMPLATE_MANAGE_PROJECTS = "/admin/plugins/project/manage_projects.html";
     private static final String TEMPLATE_CREATE_PROJECT = "/admin/plugins/project/create_project.html";
     private static final String TEMPLATE_MODIFY_PROJECT = "/admin/plugins/project/modify_project.html";
+    private static final String TEMPLATE_IMPORT_PROJECTS = "/admin/plugins/project/import_projects.html";
 
     // Parameters
     private static final String PARAMETER_ID_PROJECT = "id";
+    private static final String PARAMETER_IMPORT_FILE = "import_file";
+    private static final String PARAMETER_EXPORT_FORMAT = "format";
+    private static final String PARAMETER_EXPORT_GZIP = "gzip";
 
     // Properties for page titles
     private static final String PROPERTY_PAGE_TITLE_MANAGE_PROJECTS = "project.manage_projects.pageTitle";
     private static final String PROPERTY_PAGE_TITLE_MODIFY_PROJECT = "project.modify_project.pageTitle";
     private static final String PROPERTY_PAGE_TITLE_CREATE_PROJECT = "project.create_project.pageTitle";
+    private static final String PROPERTY_PAGE_TITLE_IMPORT_PROJECTS = "project.import_projects.pageTitle";
 
     // Markers
     private static final String MARK_PROJECT_LIST = "project_list";
     private static final String MARK_PROJECT = "project";
+    private static final String MARK_IMPORT_STATUS = "import_status";
+
+    private static final String PROPERTY_KEYSET_PAGINATION = "project.listItems.keysetPagination";
 
     private static final String JSP_MANAGE_PROJECTS = "jsp/admin/plugins/project/ManageProjects.jsp";
 
@@ -105,6 +118,10 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
     private static final String MESSAGE_ERROR_REMOVE_PROJECT = "project.message.errorRemoveProject";
 	private static final String MESSAGE_ERROR_ID_NOT_FOUND = "project.message.errorIdNotFound";
 	private static final String MESSAGE_ERROR_FILESERVICE = "project.message.errorFileService";
+	private static final String MESSAGE_ERROR_INVALID_FILTER = "project.message.errorInvalidFilter";
+	private static final String MESSAGE_ERROR_IMPORT_FILE_MISSING = "project.message.errorImportFileMissing";
+	private static final String MESSAGE_ERROR_IMPORT_RUNNING = "project.message.errorImportRunning";
+	private static final String MESSAGE_ERROR_CONCURRENT_MODIFICATION = "project.message.errorConcurrentModification";
 
     // Validations
     private static final String VALIDATION_ATTRIBUTES_PREFIX = "project.model.entity.project.attribute.";
@@ -113,12 +130,23 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
     private static final String VIEW_MANAGE_PROJECTS = "manageProjects";
     private static final String VIEW_CREATE_PROJECT = "createProject";
     private static final String VIEW_MODIFY_PROJECT = "modifyProject";
+    private static final String VIEW_IMPORT_PROJECTS = "importProjects";
 
     // Actions
     private static final String ACTION_CREATE_PROJECT = "createProject";
     private static final String ACTION_MODIFY_PROJECT = "modifyProject";
     private static final String ACTION_REMOVE_PROJECT = "removeProject";
     private static final String ACTION_CONFIRM_REMOVE_PROJECT = "confirmRemoveProject";
+    private static final String ACTION_IMPORT_PROJECTS = "importProjects";
+    private static final String ACTION_EXPORT_PROJECTS = "exportProjects";
+
+    // Export
+    private static final String EXPORT_FILE_NAME = "projects.";
+    private static final String EXPORT_GZIP_EXTENSION = ".gz";
+    private static final String CONTENT_TYPE_CSV = "text/csv; charset=UTF-8";
+    private static final String CONTENT_TYPE_NDJSON = "application/x-ndjson; charset=UTF-8";
+    private static final String CONTENT_TYPE_GZIP = "application/gzip";
+    private static final String HEADER_CONTENT_DISPOSITION = "Content-Disposition";
 
     // Infos
     private static final String INFO_PROJECT_CREATED = "project.info.project.created";
@@ -131,9 +159,7 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
     
     // Session variable to store working values
     private Project _project;
-    private List<Integer> _listIdProjects;
-    private HashMap<String,String> _mapFilterCriteria = new HashMap<>();
-    private String _optionOrderBy;
+    private ProjectImportStatus _importStatus;
     
     /**
      * Build the Manage View
@@ -144,35 +170,13 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
     public String getManageProjects( HttpServletRequest request )
     {
         _project = null;
-        
-        // new search only if in pagination mode
-        if ( request.getParameter( AbstractPaginator.PARAMETER_PAGE_INDEX) == null )
-        {
-        	// if sorting request : new search with the existing filter criteria, ordered 
-        	// example of order by parameter : orderby=name
-        	if ( StringUtils.isNotBlank( (String)request.getParameter(PARAMETER_SEARCH_ORDER_BY) ) )
-        	{
-        		
-        		String strOrderByColumn =  (String)request.getParameter(PARAMETER_SEARCH_ORDER_BY);
-        		String strSortMode = getSortMode(); 
-        		
-        		_listIdProjects = ProjectHome.getIdProjectsList( _mapFilterCriteria, strOrderByColumn, strSortMode );
-               	
-	       	}
-	       	else
-	       	{
-	       		// reload the filter criteria and search
-	       		_mapFilterCriteria = (HashMap<String, String>) getFilterCriteriaFromRequest( request );
-	       		_listIdProjects = ProjectHome.getIdProjectsList( _mapFilterCriteria, null ,null);
-	       	}
-        	
-        	//set CurrentPageIndex of Paginator to null in aim of displays the first page of results
-        	resetCurrentPageIndexOfPaginator();
-        }
-       	
-       	Map<String, Object> model = getPaginatedListModel( request, MARK_PROJECT_LIST, _listIdProjects, JSP_MANAGE_PROJECTS );
+
+        // the search, sort and page are read from the request only
+        ListState state = getListState( request );
+       	Map<String, Object> model = isKeysetPagination( ) ? getKeysetPaginatedListModel( request, MARK_PROJECT_LIST, state, JSP_MANAGE_PROJECTS )
+       			: getPaginatedListModel( request, MARK_PROJECT_LIST, state, JSP_MANAGE_PROJECTS );
              
-        addSearchParameters(model,_mapFilterCriteria); //allow the persistence of search values in inputs search bar inputs
+        addSearchParameters( model, state.getFilterCriteria( ) ); //allow the persistence of search values in inputs search bar inputs
                      
         return getPage( PROPERTY_PAGE_TITLE_MANAGE_PROJECTS, TEMPLATE_MANAGE_PROJECTS, model );
 
@@ -186,48 +190,74 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
 	@Override
 	List<Project> getItemsFromIds( List<Integer> listIds ) 
 	{
+		// the projects are returned in the order of the ids
 		List<Project> listProject = ProjectHome.getProjectsListByIds( listIds );
-        for (Project fil : listProject)
-        {
-        	IFileStoreServiceProvider fileStoreService = ProjectHome.getFileStoreServiceProvider( );
-			if ( fil.getNeufFile( ) != null )
-			{
-			try
-				{
-					File localFile = fileStoreService.getFileMetaData( fil.getNeufFile( ).getFileKey( ) );
-					if ( localFile != null )
-					{
-						fil.setNeufFile( localFile );
-						String strFileUrl = fileStoreService.getFileDownloadUrlBO( localFile.getFileKey( ) );
-						fil.getNeufFile( ).setUrl( strFileUrl );
-					}
-				}
-	            catch (Exception e) 
-	            {
-	            	AppLogService.error( e );
-	            	throw new AppException(e.getMessage(), e);
-	            }
-			}
-        }
+		ProjectFileCacheService.getInstance( ).setNeufFiles( listProject, true );
 		
-		// keep original order
-        return listProject.stream()
-                 .sorted(Comparator.comparingInt( notif -> listIds.indexOf( notif.getId())))
-                 .collect(Collectors.toList());
+		return listProject;
+	}
+	
+	/**
+     * Count the projects matching the filter criteria of a list
+     * @param state the state of the list
+     * @return the number of projects
+     */
+	@Override
+	int getItemsCount( ListState state )
+	{
+		return ProjectHome.getIdProjectsCount( state.getFilterCriteria( ) );
+	}
+	
+	/**
+     * Get the Ids of one numbered page, with the filter criteria and sort of a list
+     * @param state the state of the list
+     * @param nOffset the number of items to skip
+     * @param nLimit the number of items per page
+     * @return the ids of the page
+     */
+	@Override
+	List<Integer> getIdsRange( ListState state, int nOffset, int nLimit )
+	{
+		return ProjectHome.getIdProjectsRange( state.getFilterCriteria( ), state.getOrderBy( ), state.getSortMode( ), nOffset, nLimit );
+	}
+	
+	/**
+     * Get one page of Ids for the keyset pagination, with the filter criteria and sort of a list
+     * @param state the state of the list
+     * @param strCursor the token of the page
+     * @param nItemsPerPage the number of items per page
+     * @return the page of ids
+     */
+	@Override
+	KeysetPage<Integer> getPageOfIds( ListState state, String strCursor, int nItemsPerPage )
+	{
+		return ProjectHome.getIdProjectsPage( state.getFilterCriteria( ), state.getOrderBy( ), state.getSortMode( ), strCursor, nItemsPerPage );
+	}
+
+	/**
+     * Get the filter criteria whose value does not match the type of their column
+     * @param mapFilterCriteria the filter criteria
+     * @return the names of the invalid criteria
+     */
+	@Override
+	List<String> checkFilterCriteria( Map<String, String> mapFilterCriteria )
+	{
+		return ProjectHome.checkFilterCriteria( mapFilterCriteria );
+	}
+	
+	/**
+     * Check if the manage view uses the keyset pagination instead of the numbered pages
+     * @return true if the keyset pagination is enabled
+     */
+	private boolean isKeysetPagination( )
+	{
+		return AppPropertiesService.getPropertyBoolean( PROPERTY_KEYSET_PAGINATION, false );
 	}
 	
 	@Override
 	int getPluginDefaultNumberOfItemPerPage( ) {
 		return AppPropertiesService.getPropertyInt( PROPERTY_DEFAULT_LIST_ITEM_PER_PAGE, 50 );
 	}
-    
-    /**
-    * reset the _listIdProjects list
-    */
-    public void resetListId( )
-    {
-    	_listIdProjects = new ArrayList<>( );
-    }
 
     /**
      * Returns the form to create a project
@@ -242,6 +272,7 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
 
         Map<String, Object> model = getModel(  );
         model.put( MARK_PROJECT, _project );
+        model.put( MARK_LIST_STATE, getListStateToken( request ) );
         model.put( SecurityTokenService.MARK_TOKEN, SecurityTokenService.getInstance( ).getToken( request, ACTION_CREATE_PROJECT ) );
 
         return getPage( PROPERTY_PAGE_TITLE_CREATE_PROJECT, TEMPLATE_CREATE_PROJECT, model );
@@ -267,6 +298,7 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
         {
             try
             {
+                // the whole file is buffered in memory by the core database file store
                 String strFileStoreKey = fileStoreService.storeFileItem( neuf_file );
                 File localFile = new File( );
                 localFile.setFileKey( strFileStoreKey );
@@ -287,14 +319,101 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
         // Check constraints
         if ( !validateBean( _project, VALIDATION_ATTRIBUTES_PREFIX ) )
         {
-            return redirectView( request, VIEW_CREATE_PROJECT );
+            return redirect( request, VIEW_CREATE_PROJECT, getListStateParameters( request ) );
         }
 
         ProjectHome.create( _project );
         addInfo( INFO_PROJECT_CREATED, getLocale(  ) );
-        resetListId( );
 
-        return redirectView( request, VIEW_MANAGE_PROJECTS );
+        return redirect( request, VIEW_MANAGE_PROJECTS, getListStateParameters( request ) );
+    }
+
+    /**
+     * Returns the form to import projects from a CSV file, with the progress of the last import
+     *
+     * @param request The Http request
+     * @return the html code of the import form
+     */
+    @View( VIEW_IMPORT_PROJECTS )
+    public String getImportProjects( HttpServletRequest request )
+    {
+        Map<String, Object> model = getModel(  );
+        model.put( MARK_IMPORT_STATUS, _importStatus );
+        model.put( SecurityTokenService.MARK_TOKEN, SecurityTokenService.getInstance( ).getToken( request, ACTION_IMPORT_PROJECTS ) );
+
+        return getPage( PROPERTY_PAGE_TITLE_IMPORT_PROJECTS, TEMPLATE_IMPORT_PROJECTS, model );
+    }
+
+    /**
+     * Start the import of the uploaded CSV file. The import runs in the background,
+     * its progress is displayed by the import view.
+     *
+     * @param request The Http Request
+     * @return The Jsp URL of the process result
+     * @throws AccessDeniedException
+     */
+    @Action( ACTION_IMPORT_PROJECTS )
+    public String doImportProjects( HttpServletRequest request ) throws AccessDeniedException
+    {
+        if ( !SecurityTokenService.getInstance( ).validate( request, ACTION_IMPORT_PROJECTS ) )
+        {
+            throw new AccessDeniedException ( "Invalid security token" );
+        }
+
+        if ( _importStatus != null && !_importStatus.isFinished( ) )
+        {
+            addError( MESSAGE_ERROR_IMPORT_RUNNING, getLocale( ) );
+            return redirectView( request, VIEW_IMPORT_PROJECTS );
+        }
+
+        FileItem importFile = ( (MultipartHttpServletRequest) request ).getFile( PARAMETER_IMPORT_FILE );
+
+        if ( importFile == null || importFile.getSize( ) == 0 )
+        {
+            addError( MESSAGE_ERROR_IMPORT_FILE_MISSING, getLocale( ) );
+            return redirectView( request, VIEW_IMPORT_PROJECTS );
+        }
+
+        _importStatus = ProjectImportService.getInstance( ).startImport( importFile, getLocale( ) );
+
+        return redirectView( request, VIEW_IMPORT_PROJECTS );
+    }
+
+    /**
+     * Export the projects of the current search, in the current order, as a CSV or NDJSON file.
+     * The rows are written to the response while they are read.
+     *
+     * @param request The Http request
+     * @return null, the response is written directly
+     */
+    @Action( ACTION_EXPORT_PROJECTS )
+    public String doExportProjects( HttpServletRequest request )
+    {
+        String strFormat = ProjectExportService.FORMAT_NDJSON.equals( request.getParameter( PARAMETER_EXPORT_FORMAT ) )
+                ? ProjectExportService.FORMAT_NDJSON : ProjectExportService.FORMAT_CSV;
+        boolean bGzip = request.getParameter( PARAMETER_EXPORT_GZIP ) != null;
+
+        String strFileName = EXPORT_FILE_NAME + strFormat + ( bGzip ? EXPORT_GZIP_EXTENSION : "" );
+        String strContentType = ProjectExportService.FORMAT_NDJSON.equals( strFormat ) ? CONTENT_TYPE_NDJSON : CONTENT_TYPE_CSV;
+
+        HttpServletResponse response = getResponse( );
+        response.setContentType( bGzip ? CONTENT_TYPE_GZIP : strContentType );
+        response.setHeader( HEADER_CONTENT_DISPOSITION, "attachment; filename=\"" + strFileName + "\"" );
+
+        try
+        {
+            OutputStream out = response.getOutputStream( );
+            ListState state = getListState( request );
+            ProjectExportService.getInstance( ).export( state.getFilterCriteria( ), state.getOrderBy( ), state.getSortMode( ), strFormat, bGzip, out );
+            out.flush( );
+        }
+        catch( IOException e )
+        {
+            // the download was most likely cancelled by the client
+            AppLogService.error( "Project export interrupted", e );
+        }
+
+        return null;
     }
 
     /**
@@ -312,6 +431,7 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
     		
     		UrlItem url = new UrlItem( getActionUrl( ACTION_REMOVE_PROJECT ) );
     		url.addParameter( PARAMETER_ID_PROJECT, nId );
+    		getListStateParameters( request ).forEach( url::addParameter );
     		String strMessageUrl = AdminMessageService.getMessageUrl( request, MESSAGE_CONFIRM_REMOVE_PROJECT, url.getUrl(  ), AdminMessage.TYPE_CONFIRMATION );
     		return redirect( request, strMessageUrl );
     		
@@ -350,6 +470,7 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
 				if ( _project.getNeufFile( ) != null && StringUtils.isNotEmpty( _project.getNeufFile( ).getFileKey( ) ) ) {
 					
 					fileStoreService.delete( _project.getNeufFile( ).getFileKey( ) );
+					ProjectFileCacheService.getInstance( ).invalidate( _project.getNeufFile( ).getFileKey( ) );
 					
 					ProjectHome.remove( nId );
 			        addInfo( INFO_PROJECT_REMOVED, getLocale(  ) );
@@ -374,10 +495,9 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
     		addError( MESSAGE_ERROR_FILESERVICE, getLocale(  ));
     	}
     	
-    	resetListId( );
         _project=null;
         
-        return redirectView( request, VIEW_MANAGE_PROJECTS );
+        return redirect( request, VIEW_MANAGE_PROJECTS, getListStateParameters( request ) );
     }
 
     /**
@@ -397,28 +517,11 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
             _project = optProject.orElseThrow( ( ) -> new AppException(ERROR_RESOURCE_NOT_FOUND ) );
         }
 
-       	IFileStoreServiceProvider fileStoreService = ProjectHome.getFileStoreServiceProvider( );
-		if ( _project.getNeufFile( ) != null && StringUtils.isNotEmpty( _project.getNeufFile( ).getFileKey( ) ) )
-		{
-			try
-            {
-				File localFile = fileStoreService.getFileMetaData( _project.getNeufFile( ).getFileKey( ) );
-				if ( localFile != null )
-				{
-					_project.setNeufFile( localFile );
-					String strFileUrl = fileStoreService.getFileDownloadUrlBO( localFile.getFileKey( ) );
-					_project.getNeufFile( ).setUrl( strFileUrl );
-				}
-			}
-            catch (Exception e) 
-            {
-            	AppLogService.error( e );
-            	throw new AppException(e.getMessage(), e);
-            }
-		}
+		ProjectFileCacheService.getInstance( ).setNeufFiles( Collections.singletonList( _project ), true );
 
         Map<String, Object> model = getModel(  );
         model.put( MARK_PROJECT, _project );
+        model.put( MARK_LIST_STATE, getListStateToken( request ) );
         model.put( SecurityTokenService.MARK_TOKEN, SecurityTokenService.getInstance( ).getToken( request, ACTION_MODIFY_PROJECT ) );
 
         return getPage( PROPERTY_PAGE_TITLE_MODIFY_PROJECT, TEMPLATE_MODIFY_PROJECT, model );
@@ -440,15 +543,30 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
 		MultipartHttpServletRequest multipartRequest = (MultipartHttpServletRequest) request;
         FileItem neuf_file = multipartRequest.getFile( "neuf_file" );
        	_project.getNeufFile( ).setFileKey( request.getParameter( "neuf_fileKey" ) );
+
+        if ( !SecurityTokenService.getInstance( ).validate( request, ACTION_MODIFY_PROJECT ) )
+        {
+            throw new AccessDeniedException ( "Invalid security token" );
+        }
+
+        // Check constraints
+        if ( !validateBean( _project, VALIDATION_ATTRIBUTES_PREFIX ) )
+        {
+            return redirectToModify( request, _project.getId( ) );
+        }
+
+        // the replaced file is only deleted once the update is done, the new one is deleted if the update fails
+        String strPreviousFileKey = null;
+        String strNewFileKey = null;
       
         if ( neuf_file != null && neuf_file.getSize( ) > 0 )
         {	
             try
             {
-            	fileStoreService.delete( _project.getNeufFile( ).getFileKey( ) );
-                String strFileStoreKey = fileStoreService.storeFileItem( neuf_file );
+                strPreviousFileKey = _project.getNeufFile( ).getFileKey( );
+                strNewFileKey = fileStoreService.storeFileItem( neuf_file );
                 File localFile = new File( );
-                localFile.setFileKey( strFileStoreKey );
+                localFile.setFileKey( strNewFileKey );
                 _project.setNeufFile( localFile );
             }
             catch (Exception e) 
@@ -457,22 +575,56 @@ public class ProjectJspBean extends AbstractJspBean <Integer, Project>
                 throw new AppException( "Erreur de stockage du fichier", e );
             }
         }
-		
-        if ( !SecurityTokenService.getInstance( ).validate( request, ACTION_MODIFY_PROJECT ) )
-        {
-            throw new AccessDeniedException ( "Invalid security token" );
-        }
 
-        // Check constraints
-        if ( !validateBean( _project, VALIDATION_ATTRIBUTES_PREFIX ) )
+        if ( !ProjectHome.update( _project ) )
         {
-            return redirect( request, VIEW_MODIFY_PROJECT, PARAMETER_ID_PROJECT, _project.getId( ) );
-        }
+            // modified by someone else since the form was displayed : show the current values
+            deleteFile( fileStoreService, strNewFileKey );
+            _project = ProjectHome.findByPrimaryKey( _project.getId( ) ).orElse( null );
+            addError( MESSAGE_ERROR_CONCURRENT_MODIFICATION, getLocale( ) );
 
-        ProjectHome.update( _project );
+            return ( _project != null ) ? redirectToModify( request, _project.getId( ) )
+                    : redirect( request, VIEW_MANAGE_PROJECTS, getListStateParameters( request ) );
+        }
+        deleteFile( fileStoreService, strPreviousFileKey );
         addInfo( INFO_PROJECT_UPDATED, getLocale(  ) );
-        resetListId( );
 
-        return redirectView( request, VIEW_MANAGE_PROJECTS );
+        return redirect( request, VIEW_MANAGE_PROJECTS, getListStateParameters( request ) );
+    }
+
+    /**
+     * Redirect to the modification form of a project, keeping the state of the list to go back to
+     * @param request The Http request
+     * @param nId the id of the project
+     * @return The Jsp URL of the form
+     */
+    private String redirectToModify( HttpServletRequest request, int nId )
+    {
+        Map<String, String> mapParameters = getListStateParameters( request );
+        mapParameters.put( PARAMETER_ID_PROJECT, Integer.toString( nId ) );
+
+        return redirect( request, VIEW_MODIFY_PROJECT, mapParameters );
+    }
+
+    /**
+     * Delete a file of the file store, errors are only logged
+     * @param fileStoreService the file store
+     * @param strFileKey the key of the file, may be null
+     */
+    private static void deleteFile( IFileStoreServiceProvider fileStoreService, String strFileKey )
+    {
+        if ( StringUtils.isEmpty( strFileKey ) )
+        {
+            return;
+        }
+        try
+        {
+            fileStoreService.delete( strFileKey );
+            ProjectFileCacheService.getInstance( ).invalidate( strFileKey );
+        }
+        catch( Exception e )
+        {
+            AppLogService.error( "Erreur de suppression du fichier", e );
+        }
     }
 }
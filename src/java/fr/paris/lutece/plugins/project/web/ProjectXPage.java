@@ -36,23 +36,30 @@ package fr.paris.lutece.plugins.project.web;
 
 import fr.paris.lutece.plugins.project.business.Project;
 import fr.paris.lutece.plugins.project.business.ProjectHome;
+import fr.paris.lutece.plugins.project.service.ProjectFileCacheService;
+import fr.paris.lutece.plugins.project.service.ProjectPageCacheService;
+import fr.paris.lutece.plugins.project.service.ProjectPageCacheService.RenderedPage;
 import fr.paris.lutece.portal.util.mvc.commons.annotations.Action;
 import fr.paris.lutece.portal.web.xpages.XPage;
-import fr.paris.lutece.portal.util.mvc.xpage.MVCApplication;
 import fr.paris.lutece.portal.util.mvc.commons.annotations.View;
 import fr.paris.lutece.portal.util.mvc.xpage.annotations.Controller;
 import fr.paris.lutece.util.url.UrlItem;
 import fr.paris.lutece.portal.service.message.SiteMessageService;
 import fr.paris.lutece.portal.service.message.SiteMessage;
 import fr.paris.lutece.portal.service.message.SiteMessageException;
+import fr.paris.lutece.portal.service.security.SecurityService;
 import fr.paris.lutece.portal.service.security.SecurityTokenService;
+import fr.paris.lutece.portal.web.LocalVariables;
 import fr.paris.lutece.portal.service.admin.AccessDeniedException;
 import fr.paris.lutece.portal.service.util.AppException;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
 import javax.servlet.http.HttpServletRequest; 
+import javax.servlet.http.HttpServletResponse;
 
 import fr.paris.lutece.portal.service.util.AppException;
 import fr.paris.lutece.portal.service.util.AppLogService;
@@ -68,7 +75,7 @@ import fr.paris.lutece.portal.business.file.File;
  * This class provides the user interface to manage Project xpages ( manage, create, modify, remove )
  */
 @Controller( xpageName = "project" , pageTitleI18nKey = "project.xpage.project.pageTitle" , pagePathI18nKey = "project.xpage.project.pagePathLabel" )
-public class ProjectXPage extends MVCApplication
+public class ProjectXPage extends AbstractXPage<Integer, Project>
 {
     // Templates
     private static final String TEMPLATE_MANAGE_PROJECTS = "/skin/plugins/project/manage_projects.html";
@@ -77,6 +84,9 @@ public class ProjectXPage extends MVCApplication
     
     // Parameters
     private static final String PARAMETER_ID_PROJECT = "id";
+
+    // Urls
+    private static final String URL_MANAGE_PROJECTS = "jsp/site/Portal.jsp?page=project";
     
     // Markers
     private static final String MARK_PROJECT_LIST = "project_list";
@@ -84,6 +94,7 @@ public class ProjectXPage extends MVCApplication
     
     // Message
     private static final String MESSAGE_CONFIRM_REMOVE_PROJECT = "project.message.confirmRemoveProject";
+    private static final String MESSAGE_ERROR_CONCURRENT_MODIFICATION = "project.message.errorConcurrentModification";
     
     // Views
     private static final String VIEW_MANAGE_PROJECTS = "manageProjects";
@@ -103,6 +114,18 @@ public class ProjectXPage extends MVCApplication
     
     // Errors
     private static final String ERROR_RESOURCE_NOT_FOUND = "Resource not found";
+
+    // Http
+    private static final String METHOD_GET = "GET";
+    private static final String METHOD_HEAD = "HEAD";
+    private static final String HEADER_ETAG = "ETag";
+    private static final String HEADER_LAST_MODIFIED = "Last-Modified";
+    private static final String HEADER_CACHE_CONTROL = "Cache-Control";
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+    private static final String HEADER_IF_MODIFIED_SINCE = "If-Modified-Since";
+    private static final String CACHE_CONTROL_REVALIDATE = "no-cache";
+    private static final String WEAK_ETAG_PREFIX = "W/";
+    private static final String ETAG_ANY = "*";
     
     // Session variable to store working values
     private Project _project;
@@ -116,34 +139,176 @@ public class ProjectXPage extends MVCApplication
     public XPage getManageProjects( HttpServletRequest request )
     {
         _project = null;
-        List<Project> listProjects = ProjectHome.getProjectsList(  );
-        for (Project fil : listProjects)
+        Locale locale = getLocale( request );
+        ProjectPageCacheService pageCache = ProjectPageCacheService.getInstance( );
+        String strKey = ProjectPageCacheService.getKey( VIEW_MANAGE_PROJECTS, locale, getListParameters( request ) );
+
+        // a cached page would not show the messages waiting for this user
+        RenderedPage page = hasPendingMessages( ) ? null : pageCache.getPage( strKey );
+
+        if ( page == null )
         {
-        	IFileStoreServiceProvider fileStoreService = ProjectHome.getFileStoreServiceProvider( );
-			if ( fil.getNeufFile( ) != null )
-			{
-				try
-				{
-					File file = fileStoreService.getFileMetaData( fil.getNeufFile( ).getFileKey( ) );
-					if ( file != null )
-					{
-						fil.setNeufFile( file );
-						String strFileUrl = fileStoreService.getFileDownloadUrlFO( file.getFileKey( ) );
-						fil.getNeufFile( ).setUrl( strFileUrl );
-					}
-				}
-	            catch (Exception e) 
-	            {
-	            	AppLogService.error( e );	            	
-	            	throw new AppException(e.getMessage(), e);
-	            }
-			}
+            long lGeneration = pageCache.currentGeneration( );
+            Map<String, Object> model = getPaginatedListModel( request, MARK_PROJECT_LIST, URL_MANAGE_PROJECTS );
+            XPage xpage = getXPage( TEMPLATE_MANAGE_PROJECTS, locale, model );
+
+            // neither the messages for this user nor the files linked without their metadata are cached
+            if ( hasMessages( model ) || hasIncompleteFiles( model ) )
+            {
+                return xpage;
+            }
+            page = pageCache.putPage( strKey, lGeneration, xpage );
         }
-        
-        Map<String, Object> model = getModel(  );
-        model.put( MARK_PROJECT_LIST, listProjects );
-        
-        return getXPage( TEMPLATE_MANAGE_PROJECTS, getLocale( request ), model );
+
+        return getConditionalXPage( request, page );
+    }
+
+    /**
+     * Whether some files of the list have been linked without their metadata, the file store being too slow
+     * @param model the model of the list
+     * @return true if a file of the list has no title
+     */
+    @SuppressWarnings( "unchecked" )
+    private static boolean hasIncompleteFiles( Map<String, Object> model )
+    {
+        for ( Project project : (List<Project>) model.get( MARK_PROJECT_LIST ) )
+        {
+            File file = project.getNeufFile( );
+            if ( file != null && StringUtils.isNotEmpty( file.getFileKey( ) ) && file.getTitle( ) == null )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Returns a cached page, or an empty page with the 304 status if the client already has it.
+     * The validators are only sent to anonymous visitors, the rest of the portal page depends on the user otherwise.
+     * @param request The Http request
+     * @param page the rendered page
+     * @return the page
+     */
+    private static XPage getConditionalXPage( HttpServletRequest request, RenderedPage page )
+    {
+        HttpServletResponse response = LocalVariables.getResponse( );
+
+        if ( response == null || ( SecurityService.isAuthenticationEnable( ) && SecurityService.getInstance( ).getRegisteredUser( request ) != null ) )
+        {
+            return page.toXPage( );
+        }
+
+        response.setHeader( HEADER_ETAG, page.getETag( ) );
+        response.setDateHeader( HEADER_LAST_MODIFIED, page.getLastModified( ) );
+        response.setHeader( HEADER_CACHE_CONTROL, CACHE_CONTROL_REVALIDATE );
+
+        if ( !isNotModified( request, page ) )
+        {
+            return page.toXPage( );
+        }
+
+        response.setStatus( HttpServletResponse.SC_NOT_MODIFIED );
+        XPage xpage = new XPage( );
+        xpage.setContent( StringUtils.EMPTY );
+        xpage.setStandalone( true );
+
+        return xpage;
+    }
+
+    /**
+     * Check the conditional headers of a GET request against a rendered page
+     * @param request The Http request
+     * @param page the rendered page
+     * @return true if the client has the current version of the page
+     */
+    private static boolean isNotModified( HttpServletRequest request, RenderedPage page )
+    {
+        if ( !METHOD_GET.equals( request.getMethod( ) ) && !METHOD_HEAD.equals( request.getMethod( ) ) )
+        {
+            return false;
+        }
+
+        String strIfNoneMatch = request.getHeader( HEADER_IF_NONE_MATCH );
+        if ( strIfNoneMatch != null )
+        {
+            // weak comparison, the ETag of the page is weak
+            String strPageETag = StringUtils.removeStart( page.getETag( ), WEAK_ETAG_PREFIX );
+            for ( String strETag : strIfNoneMatch.split( "," ) )
+            {
+                String strTrimmed = StringUtils.removeStart( strETag.trim( ), WEAK_ETAG_PREFIX );
+                if ( ETAG_ANY.equals( strTrimmed ) || strPageETag.equals( strTrimmed ) )
+                {
+                    return true;
+                }
+            }
+
+            // If-Modified-Since is ignored when If-None-Match is sent
+            return false;
+        }
+
+        try
+        {
+            long lIfModifiedSince = request.getDateHeader( HEADER_IF_MODIFIED_SINCE );
+
+            return lIfModifiedSince >= 0 && lIfModifiedSince >= page.getLastModified( );
+        }
+        catch( IllegalArgumentException e )
+        {
+            return false;
+        }
+    }
+
+    /**
+     * Get Items from Ids list
+     * @param listIds
+     * @return the populated list of items corresponding to the id List
+     */
+    @Override
+    List<Project> getItemsFromIds( List<Integer> listIds )
+    {
+        // the projects are returned in the order of the ids
+        List<Project> listProject = ProjectHome.getProjectsListByIds( listIds );
+        ProjectFileCacheService.getInstance( ).setNeufFiles( listProject, false );
+
+        return listProject;
+    }
+
+    /**
+     * Count the projects matching the filter criteria
+     * @param mapFilterCriteria the filter criteria
+     * @return the number of projects
+     */
+    @Override
+    int getItemsCount( Map<String, String> mapFilterCriteria )
+    {
+        return ProjectHome.getIdProjectsCount( mapFilterCriteria );
+    }
+
+    /**
+     * Get the ids of one page of the projects matching the filter criteria
+     * @param mapFilterCriteria the filter criteria
+     * @param strOrderBy the sort column, may be null
+     * @param strSortMode the sort mode
+     * @param nOffset the number of projects to skip
+     * @param nLimit the number of projects per page
+     * @return the ids of the page
+     */
+    @Override
+    List<Integer> getIdsRange( Map<String, String> mapFilterCriteria, String strOrderBy, String strSortMode, int nOffset, int nLimit )
+    {
+        return ProjectHome.getIdProjectsRange( mapFilterCriteria, strOrderBy, strSortMode, nOffset, nLimit );
+    }
+
+    /**
+     * Get the filter criteria whose value does not match the type of their column
+     * @param mapFilterCriteria the filter criteria
+     * @return the names of the invalid criteria
+     */
+    @Override
+    List<String> checkFilterCriteria( Map<String, String> mapFilterCriteria )
+    {
+        return ProjectHome.checkFilterCriteria( mapFilterCriteria );
     }
 
     /**
@@ -184,6 +349,7 @@ public class ProjectXPage extends MVCApplication
         {
             try
             {
+                // the whole file is buffered in memory by the core database file store
                 String strFileStoreKey = fileStoreService.storeFileItem( neuf_file );
                 File file = new File( );
                 file.setFileKey( strFileStoreKey );
@@ -254,6 +420,7 @@ public class ProjectXPage extends MVCApplication
 	    	try 
 	    	{
         		fileStoreService.delete( _project.getNeufFile( ).getFileKey( ) );
+        		ProjectFileCacheService.getInstance( ).invalidate( _project.getNeufFile( ).getFileKey( ) );
        		} 
         	catch (FileServiceException e) 
            	{
@@ -284,25 +451,7 @@ public class ProjectXPage extends MVCApplication
             _project = optProject.orElseThrow( ( ) -> new AppException(ERROR_RESOURCE_NOT_FOUND ) );
         }
         
-       	IFileStoreServiceProvider fileStoreService = ProjectHome.getFileStoreServiceProvider( );
-		if ( _project.getNeufFile( ) != null && StringUtils.isNotEmpty( _project.getNeufFile( ).getFileKey( ) ) )
-		{
-			try
-	            {
-				File file = fileStoreService.getFileMetaData( _project.getNeufFile( ).getFileKey( ) );
-				if ( file != null )
-				{
-					_project.setNeufFile( file );
-					String strFileUrl = fileStoreService.getFileDownloadUrlFO( file.getFileKey( ) );
-					_project.getNeufFile( ).setUrl( strFileUrl );
-				}
-			}
-            catch (Exception e) 
-            {
-            	AppLogService.error( e );
-            	throw new AppException(e.getMessage(), e);
-            }
-		}
+		ProjectFileCacheService.getInstance( ).setNeufFiles( Collections.singletonList( _project ), false );
 
         Map<String, Object> model = getModel(  );
         model.put( MARK_PROJECT, _project );
@@ -327,15 +476,30 @@ public class ProjectXPage extends MVCApplication
 		MultipartHttpServletRequest multipartRequest = (MultipartHttpServletRequest) request;
         FileItem neuf_file = multipartRequest.getFile( "neuf_file" );
        	_project.getNeufFile( ).setFileKey( request.getParameter( "neuf_fileKey" ) );
+
+        if ( !SecurityTokenService.getInstance( ).validate( request, ACTION_MODIFY_PROJECT ) )
+        {
+            throw new AccessDeniedException ( "Invalid security token" );
+        }
+
+        // Check constraints
+        if ( !validateBean( _project ) )
+        {
+            return redirect( request, VIEW_MODIFY_PROJECT, PARAMETER_ID_PROJECT, _project.getId( ) );
+        }
+
+        // the replaced file is only deleted once the update is done, the new one is deleted if the update fails
+        String strPreviousFileKey = null;
+        String strNewFileKey = null;
       
         if ( neuf_file != null && neuf_file.getSize( ) > 0 )
         {	
             try
             {
-            	fileStoreService.delete( _project.getNeufFile( ).getFileKey( ) );
-                String strFileStoreKey = fileStoreService.storeFileItem( neuf_file );
+                strPreviousFileKey = _project.getNeufFile( ).getFileKey( );
+                strNewFileKey = fileStoreService.storeFileItem( neuf_file );
                 File file = new File( );
-                file.setFileKey( strFileStoreKey );
+                file.setFileKey( strNewFileKey );
                 _project.setNeufFile( file );
             }
             catch (Exception e) 
@@ -345,20 +509,41 @@ public class ProjectXPage extends MVCApplication
             }
         }
 
-        if ( !SecurityTokenService.getInstance( ).validate( request, ACTION_MODIFY_PROJECT ) )
+        if ( !ProjectHome.update( _project ) )
         {
-            throw new AccessDeniedException ( "Invalid security token" );
-        }
+            // modified by someone else since the form was displayed : show the current values
+            deleteFile( fileStoreService, strNewFileKey );
+            _project = ProjectHome.findByPrimaryKey( _project.getId( ) ).orElse( null );
+            addError( MESSAGE_ERROR_CONCURRENT_MODIFICATION, getLocale( request ) );
 
-        // Check constraints
-        if ( !validateBean( _project ) )
-        {
-            return redirect( request, VIEW_MODIFY_PROJECT, PARAMETER_ID_PROJECT, _project.getId( ) );
+            return ( _project != null ) ? redirect( request, VIEW_MODIFY_PROJECT, PARAMETER_ID_PROJECT, _project.getId( ) )
+                    : redirectView( request, VIEW_MANAGE_PROJECTS );
         }
-
-        ProjectHome.update( _project );
+        deleteFile( fileStoreService, strPreviousFileKey );
         addInfo( INFO_PROJECT_UPDATED, getLocale( request ) );
 
         return redirectView( request, VIEW_MANAGE_PROJECTS );
     }
+
+    /**
+     * Delete a file of the file store, errors are only logged
+     * @param fileStoreService the file store
+     * @param strFileKey the key of the file, may be null
+     */
+    private static void deleteFile( IFileStoreServiceProvider fileStoreService, String strFileKey )
+    {
+        if ( StringUtils.isEmpty( strFileKey ) )
+        {
+            return;
+        }
+        try
+        {
+            fileStoreService.delete( strFileKey );
+            ProjectFileCacheService.getInstance( ).invalidate( strFileKey );
+        }
+        catch( Exception e )
+        {
+            AppLogService.error( "Erreur de suppression du fichier", e );
+        }
+    }
 }
@@ -15,5 +15,20 @@ six_url varchar(255) default '',
 sept_date date,
 huit_b SMALLINT,
 neuf_file varchar(50),
+version int default '0' NOT NULL,
 PRIMARY KEY (id_project)
 );
+
+CREATE INDEX idx_project_un_entier ON project_table (un_entier);
+CREATE INDEX idx_project_deux_sh ON project_table (deux_sh);
+CREATE INDEX idx_project_trois_md ON project_table (trois_md);
+CREATE INDEX idx_project_cinq_mail ON project_table (cinq_mail);
+CREATE INDEX idx_project_six_url ON project_table (six_url);
+CREATE INDEX idx_project_sept_date ON project_table (sept_date);
+CREATE INDEX idx_project_huit_b ON project_table (huit_b);
+CREATE INDEX idx_project_neuf_file ON project_table (neuf_file);
+
+--
+-- Full-text index for the "fulltext" search criteria (MATCH ... AGAINST), maintained by MySQL on every insert, update and delete
+--
+CREATE FULLTEXT INDEX idx_project_fulltext ON project_table (trois_md, quatre_lg);
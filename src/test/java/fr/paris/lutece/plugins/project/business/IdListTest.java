@@ -0,0 +1,83 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+
+package fr.paris.lutece.plugins.project.business;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.util.Arrays;
+
+/**
+ * This is the test class for the int array backed list of ids
+ */
+public class IdListTest extends LuteceTestCase
+{
+    /**
+     * Test the builder, the sub lists and the List methods
+     */
+    public void testIdList( )
+    {
+        IdList.Builder builder = new IdList.Builder( 1 );
+        for ( int i = 1; i <= 100; i++ )
+        {
+            builder.add( i * 10 );
+        }
+        IdList listIds = builder.build( );
+
+        assertEquals( 100, listIds.size( ) );
+        assertEquals( 10, listIds.getInt( 0 ) );
+        assertEquals( Integer.valueOf( 1000 ), listIds.get( 99 ) );
+
+        IdList listPage = listIds.subList( 20, 30 );
+        assertEquals( 10, listPage.size( ) );
+        assertEquals( 210, listPage.getInt( 0 ) );
+        assertEquals( 2, listPage.indexOf( 230 ) );
+        assertEquals( -1, listPage.indexOf( 10 ) );
+        assertEquals( Arrays.asList( 220, 230 ), listPage.subList( 1, 3 ) );
+        assertEquals( 2550, listPage.intStream( ).sum( ) );
+
+        try
+        {
+            listPage.getInt( 10 );
+            fail( "the index is out of the sub list" );
+        }
+        catch( IndexOutOfBoundsException e )
+        {
+            // expected
+        }
+
+        assertTrue( new IdList.Builder( ).build( ).isEmpty( ) );
+        assertEquals( Arrays.asList( 3, 1, 2 ), IdList.of( 3, 1, 2 ) );
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+
+package fr.paris.lutece.plugins.project.business;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This is the test class for the keyset cursor and the seek statements of the filter DAO
+ */
+public class KeysetCursorTest extends LuteceTestCase
+{
+    private static final String SELECT = "SELECT id_project FROM project_table";
+    private static final String ID_COLUMN = "id_project";
+
+    /**
+     * Test that a cursor survives its encoding, including a null sort value
+     */
+    public void testCursorRoundTrip( )
+    {
+        for ( String strValue : Arrays.asList( "a:b:c", null, "", "\u00e9t\u00e9", "0", "1" ) )
+        {
+            String strToken = new KeysetCursor( 42, strValue ).encode( );
+            KeysetCursor cursor = KeysetCursor.decode( strToken );
+
+            assertNotNull( cursor );
+            assertEquals( 42, cursor.getLastId( ) );
+            assertEquals( strValue, cursor.getLastSortValue( ) );
+        }
+
+        assertFalse( new KeysetCursor( 1, null ).encode( ).equals( new KeysetCursor( 1, "" ).encode( ) ) );
+    }
+
+    /**
+     * Test that a tampered token is refused instead of throwing
+     */
+    public void testCursorTamperedToken( )
+    {
+        assertNull( KeysetCursor.decode( null ) );
+        assertNull( KeysetCursor.decode( "" ) );
+        assertNull( KeysetCursor.decode( "!!!" ) );
+        assertNull( KeysetCursor.decode( encode( "abc:1x" ) ) );
+        assertNull( KeysetCursor.decode( encode( "42" ) ) );
+        assertNull( KeysetCursor.decode( encode( "42:" ) ) );
+        assertNull( KeysetCursor.decode( encode( ":1x" ) ) );
+
+        ProjectDAO dao = new ProjectDAO( );
+        assertFalse( dao.isValidCursor( "sept_date", ID_COLUMN, new KeysetCursor( 5, "nope" ) ) );
+        assertTrue( dao.isValidCursor( "sept_date", ID_COLUMN, new KeysetCursor( 5, "2024-01-31" ) ) );
+    }
+
+    /**
+     * Test the statements of the first page and of a page sorted on the id only
+     */
+    public void testSeekPlanById( )
+    {
+        ProjectDAO dao = new ProjectDAO( );
+        Map<String, String> mapFilter = new HashMap<>( );
+
+        assertEquals( SELECT + " ORDER BY id_project ASC LIMIT ?", sql( dao.getSeekPlan( SELECT, ID_COLUMN, mapFilter, null, null, null ) ) );
+        assertEquals( SELECT + " WHERE 1 AND id_project > ? ORDER BY id_project ASC LIMIT ?",
+                sql( dao.getSeekPlan( SELECT, ID_COLUMN, mapFilter, null, null, new KeysetCursor( 5, null ) ) ) );
+
+        // an unknown column must not reach the statement, the page falls back to the id order
+        assertEquals( SELECT + " WHERE 1 AND id_project > ? ORDER BY id_project ASC LIMIT ?",
+                sql( dao.getSeekPlan( SELECT, ID_COLUMN, mapFilter, "bogus; x", "DESC", new KeysetCursor( 5, "x" ) ) ) );
+    }
+
+    /**
+     * Test the seek clauses on a sorted column : the id tie-breaker, the DESC order and the NULL values
+     */
+    public void testSeekPlanSorted( )
+    {
+        ProjectDAO dao = new ProjectDAO( );
+        Map<String, String> mapFilter = new HashMap<>( );
+
+        assertEquals( SELECT + " WHERE 1 AND ( deux_sh > ? OR ( deux_sh = ? AND id_project > ? ) ) ORDER BY deux_sh ASC , id_project ASC LIMIT ?",
+                sql( dao.getSeekPlan( SELECT, ID_COLUMN, mapFilter, "deux_sh", "ASC", new KeysetCursor( 5, "x" ) ) ) );
+        assertEquals( SELECT + " WHERE 1 AND ( deux_sh < ? OR ( deux_sh = ? AND id_project < ? ) OR deux_sh IS NULL ) ORDER BY deux_sh DESC , id_project DESC LIMIT ?",
+                sql( dao.getSeekPlan( SELECT, ID_COLUMN, mapFilter, "deux_sh", "DESC", new KeysetCursor( 5, "x" ) ) ) );
+
+        // NULL sorts first in ascending order and last in descending order
+        assertEquals( SELECT + " WHERE 1 AND ( deux_sh IS NOT NULL OR id_project > ? ) ORDER BY deux_sh ASC , id_project ASC LIMIT ?",
+                sql( dao.getSeekPlan( SELECT, ID_COLUMN, mapFilter, "deux_sh", "ASC", new KeysetCursor( 5, null ) ) ) );
+        assertEquals( SELECT + " WHERE 1 AND ( deux_sh IS NULL AND id_project < ? ) ORDER BY deux_sh DESC , id_project DESC LIMIT ?",
+                sql( dao.getSeekPlan( SELECT, ID_COLUMN, mapFilter, "deux_sh", "DESC", new KeysetCursor( 5, null ) ) ) );
+    }
+
+    /**
+     * Test the filter criteria of a seek statement and the reuse of the compiled plans
+     */
+    public void testSeekPlanFilter( )
+    {
+        ProjectDAO dao = new ProjectDAO( );
+        Map<String, String> mapFilter = new HashMap<>( );
+        mapFilter.put( "deux_sh", "x" );
+        mapFilter.put( "trois_md", "" );
+
+        FilterQueryPlan plan = dao.getSeekPlan( SELECT, ID_COLUMN, mapFilter, "sept_date", "ASC", new KeysetCursor( 5, "2024-01-31" ) );
+        assertEquals( SELECT + " WHERE 1 AND deux_sh LIKE ? AND ( sept_date > ? OR ( sept_date = ? AND id_project > ? ) ) ORDER BY sept_date ASC , id_project ASC LIMIT ?",
+                sql( plan ) );
+        assertEquals( Arrays.asList( "deux_sh" ), plan.getBindColumns( ) );
+
+        // the plan only depends on the shape of the page, not on the values
+        mapFilter.put( "deux_sh", "y" );
+        assertTrue( plan == dao.getSeekPlan( SELECT, ID_COLUMN, mapFilter, "sept_date", "ASC", new KeysetCursor( 9, "2025-02-01" ) ) );
+    }
+
+    private static String encode( String strToken )
+    {
+        return Base64.getUrlEncoder( ).withoutPadding( ).encodeToString( strToken.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+    private static String sql( FilterQueryPlan plan )
+    {
+        return plan.getSql( ).replaceAll( "\\s+", " " ).trim( );
+    }
+}
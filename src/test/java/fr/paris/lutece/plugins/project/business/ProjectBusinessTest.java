@@ -36,6 +36,10 @@ package fr.paris.lutece.plugins.project.business;
 
 import fr.paris.lutece.test.LuteceTestCase;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 
 import java.sql.Date;
@@ -130,8 +134,242 @@ public class ProjectBusinessTest extends LuteceTestCase
         assertNull( projectStored );
         
     }
-    
-    
-     
 
+	/**
+	* test bulk create, update and remove of Project
+	*/
+    public void testBusinessBulk(  )
+    {
+        List<Project> listProjects = new ArrayList<>( );
+        for ( int i = 0; i < 3; i++ )
+        {
+            Project project = new Project();
+            project.setUnEntier( UNENTIER1 );
+            project.setDeuxSh( DEUXSH1 );
+            project.setSeptDate( SEPTDATE1 );
+            listProjects.add( project );
+        }
+
+        // Create test
+        ProjectHome.createAll( listProjects );
+        List<Integer> listIds = new ArrayList<>( );
+        for ( Project project : listProjects )
+        {
+            assertTrue( project.getId( ) > 0 );
+            listIds.add( project.getId( ) );
+        }
+
+        // Update test
+        for ( Project project : listProjects )
+        {
+            project.setDeuxSh( DEUXSH2 );
+        }
+        assertTrue( ProjectHome.updateAll( listProjects ).isEmpty( ) );
+        for ( Project projectStored : ProjectHome.getProjectsListByIds( listIds ) )
+        {
+            assertEquals( DEUXSH2, projectStored.getDeuxSh( ) );
+        }
+
+        // Conflict test : a project modified since it was read is returned and not written
+        Project projectModified = ProjectHome.findByPrimaryKey( listIds.get( 0 ) ).orElse( null );
+        projectModified.setTroisMd( TROISMD1 );
+        assertTrue( ProjectHome.update( projectModified ) );
+        for ( Project project : listProjects )
+        {
+            project.setDeuxSh( DEUXSH1 );
+        }
+        List<Project> listRejected = ProjectHome.updateAll( listProjects );
+        assertEquals( 1, listRejected.size( ) );
+        assertEquals( listIds.get( 0 ).intValue( ), listRejected.get( 0 ).getId( ) );
+        assertEquals( DEUXSH2, ProjectHome.findByPrimaryKey( listIds.get( 0 ) ).orElse( null ).getDeuxSh( ) );
+        assertEquals( DEUXSH1, ProjectHome.findByPrimaryKey( listIds.get( 1 ) ).orElse( null ).getDeuxSh( ) );
+
+        // Order test : the projects are returned in the order of the ids
+        List<Integer> listReversedIds = new ArrayList<>( listIds );
+        Collections.reverse( listReversedIds );
+        List<Project> listReversed = ProjectHome.getProjectsListByIds( listReversedIds, ProjectProjection.ID_LABEL );
+        assertEquals( listReversedIds.size( ), listReversed.size( ) );
+        for ( int i = 0; i < listReversed.size( ); i++ )
+        {
+            assertEquals( listReversedIds.get( i ).intValue( ), listReversed.get( i ).getId( ) );
+        }
+
+        // Delete test
+        ProjectHome.removeAll( listIds );
+        assertTrue( ProjectHome.getProjectsListByIds( listIds ).isEmpty( ) );
+    }
+
+
+	/**
+	* test the load by ids of more projects than an IN list holds, with repeated and removed ids
+	*/
+    public void testBusinessListByIds(  )
+    {
+        List<Project> listProjects = new ArrayList<>( );
+        for ( int i = 0; i < 140; i++ )
+        {
+            Project project = new Project();
+            project.setUnEntier( i );
+            project.setDeuxSh( DEUXSH1 );
+            project.setSeptDate( SEPTDATE1 );
+            listProjects.add( project );
+        }
+        ProjectHome.createAll( listProjects );
+
+        List<Integer> listIds = new ArrayList<>( );
+        for ( Project project : listProjects )
+        {
+            listIds.add( project.getId( ) );
+        }
+        Collections.reverse( listIds );
+
+        // the removed projects leave a hole, at the start, in the middle and at the end of a 128 ids chunk
+        List<Integer> listRemovedIds = new ArrayList<>( );
+        listRemovedIds.add( listIds.get( 0 ) );
+        listRemovedIds.add( listIds.get( 60 ) );
+        listRemovedIds.add( listIds.get( 127 ) );
+        ProjectHome.removeAll( listRemovedIds );
+
+        // distinct id counts around the IN list sizes 1, 8, 32 and 128, and above
+        for ( int nSize : new int [ ] { 1, 2, 8, 9, 32, 33, 128, 129, 140 } )
+        {
+            List<Integer> listRequest = new ArrayList<>( listIds.subList( 0, nSize ) );
+            listRequest.add( listRequest.get( listRequest.size( ) / 2 ) );
+
+            List<Integer> listExpected = new ArrayList<>( listIds.subList( 0, nSize ) );
+            listExpected.removeAll( listRemovedIds );
+
+            for ( ProjectProjection projection : ProjectProjection.values( ) )
+            {
+                List<Project> listLoaded = ProjectHome.getProjectsListByIds( listRequest, projection );
+                assertEquals( listExpected.size( ), listLoaded.size( ) );
+                for ( int i = 0; i < listLoaded.size( ); i++ )
+                {
+                    assertEquals( listExpected.get( i ).intValue( ), listLoaded.get( i ).getId( ) );
+                }
+            }
+        }
+
+        // the rows are read for the right ids, not only in the right order
+        for ( Project project : ProjectHome.getProjectsListByIds( listIds, ProjectProjection.SUMMARY ) )
+        {
+            assertEquals( 139 - listIds.indexOf( project.getId( ) ), project.getUnEntier( ) );
+        }
+
+        ProjectHome.removeAll( listIds );
+        assertTrue( ProjectHome.getProjectsListByIds( listIds ).isEmpty( ) );
+    }
+
+
+	/**
+	* test the update of a Project modified concurrently
+	*/
+    public void testBusinessConcurrentUpdate(  )
+    {
+        Project project = new Project();
+        project.setUnEntier( UNENTIER1 );
+        project.setDeuxSh( DEUXSH1 );
+        project.setSeptDate( SEPTDATE1 );
+        ProjectHome.create( project );
+
+        // two editors read the same version
+        Project projectEditor1 = ProjectHome.findByPrimaryKey( project.getId( ) ).orElse( null );
+        Project projectEditor2 = ProjectHome.findByPrimaryKey( project.getId( ) ).orElse( null );
+
+        projectEditor1.setDeuxSh( DEUXSH2 );
+        assertTrue( ProjectHome.update( projectEditor1 ) );
+        assertEquals( project.getVersion( ) + 1, projectEditor1.getVersion( ) );
+
+        // the second update is based on a stale version and is rejected
+        projectEditor2.setTroisMd( TROISMD2 );
+        assertFalse( ProjectHome.update( projectEditor2 ) );
+        Project projectStored = ProjectHome.findByPrimaryKey( project.getId( ) ).orElse( null );
+        assertEquals( DEUXSH2, projectStored.getDeuxSh( ) );
+        assertEquals( projectEditor1.getVersion( ), projectStored.getVersion( ) );
+
+        ProjectHome.remove( project.getId( ) );
+    }
+
+	/**
+	* test that only the changed columns of a Project are written
+	*/
+    public void testBusinessPartialUpdate(  )
+    {
+        Project project = new Project();
+        project.setUnEntier( UNENTIER1 );
+        project.setDeuxSh( DEUXSH1 );
+        project.setTroisMd( TROISMD1 );
+        project.setSeptDate( SEPTDATE1 );
+        project.setHuitB( HUITB1 );
+        ProjectHome.create( project );
+
+        Project projectLoaded = ProjectHome.findByPrimaryKey( project.getId( ) ).orElse( null );
+        assertTrue( projectLoaded.changedColumns( ).isEmpty( ) );
+        projectLoaded.setDeuxSh( DEUXSH2 );
+        projectLoaded.setUnEntier( UNENTIER1 );
+        assertEquals( EnumSet.of( ProjectColumn.DEUX_SH ), projectLoaded.changedColumns( ) );
+        assertTrue( ProjectHome.update( projectLoaded ) );
+        assertTrue( projectLoaded.changedColumns( ).isEmpty( ) );
+
+        Project projectStored = ProjectHome.findByPrimaryKey( project.getId( ) ).orElse( null );
+        assertEquals( DEUXSH2, projectStored.getDeuxSh( ) );
+        assertEquals( TROISMD1, projectStored.getTroisMd( ) );
+        assertEquals( UNENTIER1, projectStored.getUnEntier( ) );
+        assertEquals( HUITB1, projectStored.getHuitB( ) );
+        assertEquals( project.getVersion( ) + 1, projectStored.getVersion( ) );
+
+        ProjectHome.remove( project.getId( ) );
+    }
+
+	/**
+	* test that an unchanged Project writes nothing but is still checked against its row
+	*/
+    public void testBusinessUpdateWithoutChange(  )
+    {
+        Project project = new Project();
+        project.setUnEntier( UNENTIER1 );
+        project.setSeptDate( SEPTDATE1 );
+        ProjectHome.create( project );
+
+        Project projectLoaded = ProjectHome.findByPrimaryKey( project.getId( ) ).orElse( null );
+        int nVersion = projectLoaded.getVersion( );
+        assertTrue( ProjectHome.update( projectLoaded ) );
+        assertEquals( nVersion, projectLoaded.getVersion( ) );
+        assertEquals( nVersion, ProjectHome.findByPrimaryKey( project.getId( ) ).orElse( null ).getVersion( ) );
+
+        // the row has been removed meanwhile
+        ProjectHome.remove( project.getId( ) );
+        assertFalse( ProjectHome.update( projectLoaded ) );
+    }
+
+	/**
+	* test that all the columns of a Project built in memory are written
+	*/
+    public void testBusinessUpdateNotLoaded(  )
+    {
+        Project project = new Project();
+        project.setUnEntier( UNENTIER1 );
+        project.setDeuxSh( DEUXSH1 );
+        project.setTroisMd( TROISMD1 );
+        project.setSeptDate( SEPTDATE1 );
+        project.setHuitB( HUITB1 );
+        ProjectHome.create( project );
+
+        // the default values of the fields are written as well
+        Project projectNotLoaded = new Project();
+        projectNotLoaded.setId( project.getId( ) );
+        projectNotLoaded.setVersion( project.getVersion( ) );
+        projectNotLoaded.setDeuxSh( DEUXSH2 );
+        projectNotLoaded.setSeptDate( SEPTDATE1 );
+        assertEquals( EnumSet.allOf( ProjectColumn.class ), projectNotLoaded.changedColumns( ) );
+        assertTrue( ProjectHome.update( projectNotLoaded ) );
+
+        Project projectStored = ProjectHome.findByPrimaryKey( project.getId( ) ).orElse( null );
+        assertEquals( DEUXSH2, projectStored.getDeuxSh( ) );
+        assertEquals( 0, projectStored.getUnEntier( ) );
+        assertNull( projectStored.getTroisMd( ) );
+        assertFalse( projectStored.getHuitB( ) );
+
+        ProjectHome.remove( project.getId( ) );
+    }
 }
\ No newline at end of file
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+
+package fr.paris.lutece.plugins.project.service;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+/**
+ * This is the test class for the CSV reader of the project import
+ */
+public class ProjectCsvReaderTest extends LuteceTestCase
+{
+    /**
+     * Test the reading of plain and quoted fields
+     * @throws IOException
+     */
+    public void testReadRecord( ) throws IOException
+    {
+        String strCsv = "un_entier;deux_sh\r\n1;\"a;b\"\n2;\"line\nbreak \"\"quoted\"\"\"\n3;";
+
+        try ( ProjectCsvReader reader = new ProjectCsvReader( new StringReader( strCsv ), ';' ) )
+        {
+            assertEquals( Arrays.asList( "un_entier", "deux_sh" ), reader.readRecord( ) );
+            assertEquals( Arrays.asList( "1", "a;b" ), reader.readRecord( ) );
+            assertEquals( 2, reader.getLineNumber( ) );
+            assertEquals( Arrays.asList( "2", "line\nbreak \"quoted\"" ), reader.readRecord( ) );
+            assertEquals( Arrays.asList( "3", "" ), reader.readRecord( ) );
+            assertEquals( 5, reader.getLineNumber( ) );
+            assertNull( reader.readRecord( ) );
+        }
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Copyright (c) 2002-2024, City of Paris
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ *  1. Redistributions of source code must retain the above copyright notice
+ *     and the following disclaimer.
+ *
+ *  2. Redistributions in binary form must reproduce the above copyright notice
+ *     and the following disclaimer in the documentation and/or other materials
+ *     provided with the distribution.
+ *
+ *  3. Neither the name of 'Mairie de Paris' nor 'Lutece' nor the names of its
+ *     contributors may be used to endorse or promote products derived from
+ *     this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+ * AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+ * IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE
+ * ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDERS OR CONTRIBUTORS BE
+ * LIABLE FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR
+ * CONSEQUENTIAL DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF
+ * SUBSTITUTE GOODS OR SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS
+ * INTERRUPTION) HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN
+ * CONTRACT, STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * License 1.0
+ */
+
+package fr.paris.lutece.plugins.project.web;
+
+import fr.paris.lutece.test.LuteceTestCase;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This is the test class for the signed state of the lists
+ */
+public class ListStateTest extends LuteceTestCase
+{
+    /**
+     * Test the encoding, the decoding and the signature of a state
+     */
+    public void testEncodeDecode( )
+    {
+        Map<String, String> mapFilterCriteria = new HashMap<>( );
+        mapFilterCriteria.put( "deux_sh", "a&b=c \u00e9" );
+        mapFilterCriteria.put( "sept_date_from", "2024-01-31" );
+        ListState state = new ListState( mapFilterCriteria, null, null, 20 ).sortedBy( "un_entier" ).sortedBy( "un_entier" );
+
+        String strToken = state.encode( );
+        ListState decoded = ListState.decode( strToken );
+
+        assertNotNull( decoded );
+        assertEquals( mapFilterCriteria, decoded.getFilterCriteria( ) );
+        assertEquals( "un_entier", decoded.getOrderBy( ) );
+        assertEquals( "DESC", decoded.getSortMode( ) );
+        assertEquals( 20, decoded.getItemsPerPage( ) );
+
+        // a modified payload or signature is rejected
+        char cFirst = strToken.charAt( 0 );
+        assertNull( ListState.decode( ( cFirst == 'A' ? 'B' : 'A' ) + strToken.substring( 1 ) ) );
+        assertNull( ListState.decode( strToken.substring( 0, strToken.length( ) - 1 ) ) );
+        assertNull( ListState.decode( "garbage" ) );
+        assertNull( ListState.decode( null ) );
+    }
+}
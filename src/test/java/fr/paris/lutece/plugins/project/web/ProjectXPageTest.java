@@ -217,5 +217,34 @@ public void testXPage(  ) throws AccessDeniedException, IOException
 		assertNotNull( xpage.doRemoveProject( request ) );
 
     }
+
+    /**
+     * Test that the id of the projects can be sent as sort and filter column by the front office without reaching SQL as "id"
+     */
+    public void testXPageOrderById(  )
+    {
+        ProjectXPage xpage = new ProjectXPage( );
+        MockHttpServletRequest request = new MockHttpServletRequest( );
+        LocalVariables.setLocal( new MockServletConfig( ), request, new MockHttpServletResponse( ) );
+        request.addParameter( "page", "project" );
+        request.addParameter( "orderBy", "id" );
+        request.addParameter( "sortMode", "DESC" );
+        request.addParameter( "filter_id", "1" );
+
+        assertNotNull( xpage.getManageProjects( request ) );
+
+        // the primary key column is the one to sort and filter on
+        request = new MockHttpServletRequest( );
+        LocalVariables.setLocal( new MockServletConfig( ), request, new MockHttpServletResponse( ) );
+        request.addParameter( "page", "project" );
+        request.addParameter( "orderBy", "id_project" );
+        request.addParameter( "filter_id_project", "1" );
+
+        assertNotNull( xpage.getManageProjects( request ) );
+
+        Map<String, String> mapFilterCriteria = new HashMap<>( );
+        mapFilterCriteria.put( "id", "1" );
+        assertNotNull( ProjectHome.getIdProjectsList( mapFilterCriteria, "id", "DESC" ) );
+    }
     
 }